@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 import io.github.cesarconte.subtitle_translator.config.AppProperties;
@@ -14,6 +15,7 @@ import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
  */
 @SpringBootApplication
 @EnableConfigurationProperties({ DeeplProperties.class, AppProperties.class })
+@EnableScheduling
 public class SubtitleTranslatorApplication {
 
 	public static void main(String[] args) {
@@ -11,6 +11,11 @@ import org.springframework.context.annotation.Configuration;
 public class AppProperties {
 
     private String version;
+    private Jobs jobs = new Jobs();
+    private ProgressStream progressStream = new ProgressStream();
+    private Batch batch = new Batch();
+    private AccessStats accessStats = new AccessStats();
+    private TranslationFilter translationFilter = new TranslationFilter();
 
     // Getters and setters
     public String getVersion() {
@@ -20,4 +25,203 @@ public class AppProperties {
     public void setVersion(String version) {
         this.version = version;
     }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public ProgressStream getProgressStream() {
+        return progressStream;
+    }
+
+    public void setProgressStream(ProgressStream progressStream) {
+        this.progressStream = progressStream;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public AccessStats getAccessStats() {
+        return accessStats;
+    }
+
+    public void setAccessStats(AccessStats accessStats) {
+        this.accessStats = accessStats;
+    }
+
+    public TranslationFilter getTranslationFilter() {
+        return translationFilter;
+    }
+
+    public void setTranslationFilter(TranslationFilter translationFilter) {
+        this.translationFilter = translationFilter;
+    }
+
+    /**
+     * Background execution of subtitle translation jobs
+     */
+    public static class Jobs {
+        // Jobs translated at the same time
+        private int maxConcurrentJobs = 4;
+        // Jobs waiting for a free worker before new ones are rejected
+        private int queueCapacity = 50;
+        // Time a finished result stays available for download
+        private long resultTtlMinutes = 30;
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs;
+        }
+
+        public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getResultTtlMinutes() {
+            return resultTtlMinutes;
+        }
+
+        public void setResultTtlMinutes(long resultTtlMinutes) {
+            this.resultTtlMinutes = resultTtlMinutes;
+        }
+    }
+
+    /**
+     * Server-Sent Events progress stream
+     */
+    public static class ProgressStream {
+        // Minimum time between two pushes to the same client
+        private long minIntervalMs = 250;
+        // Time after which an open stream is closed
+        private long timeoutMs = 30 * 60 * 1000;
+
+        public long getMinIntervalMs() {
+            return minIntervalMs;
+        }
+
+        public void setMinIntervalMs(long minIntervalMs) {
+            this.minIntervalMs = minIntervalMs;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+    }
+
+    /**
+     * Translation of ZIP archives of subtitle files
+     */
+    public static class Batch {
+        // Files of one batch translated at the same time
+        private int maxConcurrentFiles = 4;
+        // SRT files accepted in one archive
+        private int maxFiles = 200;
+        // Time a file waits for room in the job queue before the rest of the batch fails
+        private long queueTimeoutSeconds = 300;
+
+        public int getMaxConcurrentFiles() {
+            return maxConcurrentFiles;
+        }
+
+        public void setMaxConcurrentFiles(int maxConcurrentFiles) {
+            this.maxConcurrentFiles = maxConcurrentFiles;
+        }
+
+        public int getMaxFiles() {
+            return maxFiles;
+        }
+
+        public void setMaxFiles(int maxFiles) {
+            this.maxFiles = maxFiles;
+        }
+
+        public long getQueueTimeoutSeconds() {
+            return queueTimeoutSeconds;
+        }
+
+        public void setQueueTimeoutSeconds(long queueTimeoutSeconds) {
+            this.queueTimeoutSeconds = queueTimeoutSeconds;
+        }
+    }
+
+    /**
+     * Batched writes of translation access statistics
+     */
+    public static class AccessStats {
+        // Milliseconds between writes of the recorded accesses
+        private long flushIntervalMs = 10000;
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+    }
+
+    /**
+     * Bloom filter in front of the stored translation lookups
+     */
+    public static class TranslationFilter {
+        private boolean enabled = true;
+        // Keys the filter is sized for; it is rebuilt larger when exceeded
+        private long expectedInsertions = 1_000_000;
+        // Target false positive probability
+        private double falsePositiveRate = 0.01;
+        // Milliseconds between reads of the keys saved by other instances
+        private long syncIntervalMs = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getExpectedInsertions() {
+            return expectedInsertions;
+        }
+
+        public void setExpectedInsertions(long expectedInsertions) {
+            this.expectedInsertions = expectedInsertions;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public long getSyncIntervalMs() {
+            return syncIntervalMs;
+        }
+
+        public void setSyncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+        }
+    }
 }
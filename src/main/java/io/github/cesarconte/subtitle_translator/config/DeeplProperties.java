@@ -15,6 +15,11 @@ public class DeeplProperties {
     private Api api = new Api();
     private Confidence confidence = new Confidence();
     private Translation translation = new Translation();
+    private Concurrency concurrency = new Concurrency();
+    private RateLimit rateLimit = new RateLimit();
+    private Batching batching = new Batching();
+    private SegmentCache segmentCache = new SegmentCache();
+    private Http http = new Http();
 
     // Nested properties class for "api" properties (deepl.api.*)
     public static class Api {
@@ -100,6 +105,248 @@ public class DeeplProperties {
         }
     }
 
+    // Nested class for request concurrency properties (deepl.concurrency.*)
+    public static class Concurrency {
+        // Maximum number of DeepL requests kept in flight at the same time
+        private int maxInFlightRequests = 4;
+
+        public int getMaxInFlightRequests() {
+            return maxInFlightRequests;
+        }
+
+        public void setMaxInFlightRequests(int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+        }
+    }
+
+    // Nested class for the adaptive rate limiter properties (deepl.rate-limit.*)
+    public static class RateLimit {
+        // Upper bounds the limiter probes back up to after throttling
+        private double maxRequestsPerSecond = 10;
+        private double maxCharactersPerSecond = 50000;
+        // Fraction of the upper bounds used when the application starts
+        private double initialRateFraction = 0.5;
+        // Lowest fraction the limiter backs off to
+        private double minRateFraction = 0.05;
+        // Fraction added after every successful call (additive increase)
+        private double increaseStep = 0.05;
+        // Factor applied after a 429 response (multiplicative decrease)
+        private double decreaseFactor = 0.5;
+        // Retries for a call rejected with 429 before giving up
+        private int maxRetries = 3;
+
+        public double getMaxRequestsPerSecond() {
+            return maxRequestsPerSecond;
+        }
+
+        public void setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+        }
+
+        public double getMaxCharactersPerSecond() {
+            return maxCharactersPerSecond;
+        }
+
+        public void setMaxCharactersPerSecond(double maxCharactersPerSecond) {
+            this.maxCharactersPerSecond = maxCharactersPerSecond;
+        }
+
+        public double getInitialRateFraction() {
+            return initialRateFraction;
+        }
+
+        public void setInitialRateFraction(double initialRateFraction) {
+            this.initialRateFraction = initialRateFraction;
+        }
+
+        public double getMinRateFraction() {
+            return minRateFraction;
+        }
+
+        public void setMinRateFraction(double minRateFraction) {
+            this.minRateFraction = minRateFraction;
+        }
+
+        public double getIncreaseStep() {
+            return increaseStep;
+        }
+
+        public void setIncreaseStep(double increaseStep) {
+            this.increaseStep = increaseStep;
+        }
+
+        public double getDecreaseFactor() {
+            return decreaseFactor;
+        }
+
+        public void setDecreaseFactor(double decreaseFactor) {
+            this.decreaseFactor = decreaseFactor;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+    }
+
+    // Nested class for request sizing properties (deepl.batching.*)
+    public static class Batching {
+        // Character budget used until there are latency measurements
+        private int targetCharsPerRequest = 5000;
+        private int minCharsPerRequest = 1000;
+        private int maxCharsPerRequest = 30000;
+        // Form-encoded body size cap (DeepL rejects bodies over 128 KiB)
+        private int maxBytesPerRequest = 120 * 1024;
+        // Upper bound of subtitles per request (DeepL accepts up to 50 texts)
+        private int maxSubtitlesPerRequest = 50;
+        // Latency each request should aim for; the budget adapts towards it
+        private long targetLatencyMs = 3000;
+
+        public int getTargetCharsPerRequest() {
+            return targetCharsPerRequest;
+        }
+
+        public void setTargetCharsPerRequest(int targetCharsPerRequest) {
+            this.targetCharsPerRequest = targetCharsPerRequest;
+        }
+
+        public int getMinCharsPerRequest() {
+            return minCharsPerRequest;
+        }
+
+        public void setMinCharsPerRequest(int minCharsPerRequest) {
+            this.minCharsPerRequest = minCharsPerRequest;
+        }
+
+        public int getMaxCharsPerRequest() {
+            return maxCharsPerRequest;
+        }
+
+        public void setMaxCharsPerRequest(int maxCharsPerRequest) {
+            this.maxCharsPerRequest = maxCharsPerRequest;
+        }
+
+        public int getMaxBytesPerRequest() {
+            return maxBytesPerRequest;
+        }
+
+        public void setMaxBytesPerRequest(int maxBytesPerRequest) {
+            this.maxBytesPerRequest = maxBytesPerRequest;
+        }
+
+        public int getMaxSubtitlesPerRequest() {
+            return maxSubtitlesPerRequest;
+        }
+
+        public void setMaxSubtitlesPerRequest(int maxSubtitlesPerRequest) {
+            this.maxSubtitlesPerRequest = maxSubtitlesPerRequest;
+        }
+
+        public long getTargetLatencyMs() {
+            return targetLatencyMs;
+        }
+
+        public void setTargetLatencyMs(long targetLatencyMs) {
+            this.targetLatencyMs = targetLatencyMs;
+        }
+    }
+
+    // Nested class for the segment translation memory (deepl.segment-cache.*)
+    public static class SegmentCache {
+        private boolean enabled = true;
+        // Entries kept in the in-memory tier
+        private long maxEntries = 100000;
+        // Whether segments are also stored in MongoDB
+        private boolean persistent = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public boolean isPersistent() {
+            return persistent;
+        }
+
+        public void setPersistent(boolean persistent) {
+            this.persistent = persistent;
+        }
+    }
+
+    // Nested class for the HTTP client connection pool (deepl.http.*)
+    public static class Http {
+        private int maxConnections = 50;
+        // Requests allowed to wait for a free pooled connection
+        private int pendingAcquireMaxCount = 500;
+        private long pendingAcquireTimeoutMs = 60000;
+        private int connectTimeoutMs = 5000;
+        private long responseTimeoutMs = 60000;
+        // Idle pooled connections are closed after this time
+        private long maxIdleTimeMs = 30000;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public long getPendingAcquireTimeoutMs() {
+            return pendingAcquireTimeoutMs;
+        }
+
+        public void setPendingAcquireTimeoutMs(long pendingAcquireTimeoutMs) {
+            this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs;
+        }
+
+        public int getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        public long getResponseTimeoutMs() {
+            return responseTimeoutMs;
+        }
+
+        public void setResponseTimeoutMs(long responseTimeoutMs) {
+            this.responseTimeoutMs = responseTimeoutMs;
+        }
+
+        public long getMaxIdleTimeMs() {
+            return maxIdleTimeMs;
+        }
+
+        public void setMaxIdleTimeMs(long maxIdleTimeMs) {
+            this.maxIdleTimeMs = maxIdleTimeMs;
+        }
+    }
+
     // Getters and setters
     public Api getApi() {
         return api;
@@ -124,4 +371,44 @@ public class DeeplProperties {
     public void setTranslation(Translation translation) {
         this.translation = translation;
     }
+
+    public Concurrency getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Concurrency concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Batching getBatching() {
+        return batching;
+    }
+
+    public void setBatching(Batching batching) {
+        this.batching = batching;
+    }
+
+    public SegmentCache getSegmentCache() {
+        return segmentCache;
+    }
+
+    public void setSegmentCache(SegmentCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public void setHttp(Http http) {
+        this.http = http;
+    }
 }
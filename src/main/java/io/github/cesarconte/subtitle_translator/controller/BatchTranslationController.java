@@ -0,0 +1,97 @@
+package io.github.cesarconte.subtitle_translator.controller;
+
+import io.github.cesarconte.subtitle_translator.model.BatchFileStatus;
+import io.github.cesarconte.subtitle_translator.model.TranslationRequest;
+import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
+import io.github.cesarconte.subtitle_translator.service.BatchTranslationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * REST controller to translate ZIP archives of subtitle files
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchTranslationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchTranslationController.class);
+
+    private static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+
+    private final BatchTranslationService batchTranslationService;
+
+    public BatchTranslationController(BatchTranslationService batchTranslationService) {
+        this.batchTranslationService = batchTranslationService;
+    }
+
+    /**
+     * Endpoint to translate every SRT file of a ZIP archive into one or more
+     * languages. The response is a ZIP archive written as the files finish;
+     * its X-Batch-Id header identifies the batch for progress queries.
+     *
+     * @param file            ZIP archive of SRT files (UTF-8)
+     * @param targetLanguages Target language codes
+     * @param options         Source language and translation options, as
+     *                        form fields
+     * @return ZIP archive with the translated files
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> translateArchive(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam List<String> targetLanguages,
+            @ModelAttribute TranslationRequest options) throws IOException {
+        BatchTranslationService.Batch batch;
+        try (InputStream archive = file.getInputStream()) {
+            batch = batchTranslationService.prepare(archive, targetLanguages);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new TranslationResponse(false, e.getMessage()));
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            // Send the headers (and the batch ID) before the first file is ready
+            outputStream.flush();
+            batchTranslationService.run(batch, options, outputStream);
+        };
+
+        logger.info("Translating batch {} into {}", batch.getId(), targetLanguages);
+        return ResponseEntity.ok()
+                .contentType(ZIP)
+                .header("X-Batch-Id", batch.getId())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("translations.zip")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Endpoint to check the progress of the files of a batch
+     *
+     * @param batchId Batch ID from the X-Batch-Id header
+     * @return State of each file, or 404 if unknown
+     */
+    @GetMapping("/{batchId}")
+    public ResponseEntity<List<BatchFileStatus>> getBatchStatus(@PathVariable String batchId) {
+        return batchTranslationService.getStatus(batchId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
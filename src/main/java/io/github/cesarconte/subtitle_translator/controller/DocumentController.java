@@ -0,0 +1,89 @@
+package io.github.cesarconte.subtitle_translator.controller;
+
+import io.github.cesarconte.subtitle_translator.model.DocumentHandle;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
+import io.github.cesarconte.subtitle_translator.service.SubtitleDocumentService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * REST controller to upload subtitle documents once and refer to them by
+ * handle in later requests
+ */
+@RestController
+@RequestMapping("/api/documents")
+public class DocumentController {
+
+    private final SubtitleDocumentService subtitleDocumentService;
+
+    public DocumentController(SubtitleDocumentService subtitleDocumentService) {
+        this.subtitleDocumentService = subtitleDocumentService;
+    }
+
+    /**
+     * Endpoint to upload the raw SRT file in the request body
+     *
+     * @param content SRT file (UTF-8)
+     * @return 201 Created with the document handle
+     */
+    @PostMapping(consumes = "application/x-subrip")
+    public ResponseEntity<?> uploadRaw(InputStream content) {
+        return store(subtitleDocumentService.parse(content));
+    }
+
+    /**
+     * Endpoint to upload an SRT file as multipart/form-data
+     *
+     * @param file SRT file (UTF-8)
+     * @return 201 Created with the document handle
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> upload(@RequestPart("file") MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return store(subtitleDocumentService.parse(content));
+        }
+    }
+
+    /**
+     * Endpoint to check whether a document is still stored
+     *
+     * @param documentId Document handle
+     * @return The document handle, or 404 if unknown or expired
+     */
+    @GetMapping("/{documentId}")
+    public ResponseEntity<DocumentHandle> getDocument(@PathVariable String documentId) {
+        return subtitleDocumentService.getStored(documentId)
+                .map(document -> ResponseEntity.ok(toHandle(document)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<?> store(ParsedSubtitleDocument document) {
+        if (!document.isValid()) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new TranslationResponse(false, "The file does not have a valid SRT format"));
+        }
+
+        ParsedSubtitleDocument stored = subtitleDocumentService.store(document);
+        return ResponseEntity
+                .created(URI.create("/api/documents/" + stored.getContentHash()))
+                .body(toHandle(stored));
+    }
+
+    private static DocumentHandle toHandle(ParsedSubtitleDocument document) {
+        return new DocumentHandle(document.getContentHash(), document.getSubtitles().size(),
+                document.getTotalChars());
+    }
+}
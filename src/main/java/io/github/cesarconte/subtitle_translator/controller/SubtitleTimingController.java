@@ -0,0 +1,69 @@
+package io.github.cesarconte.subtitle_translator.controller;
+
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.TimingRequest;
+import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
+import io.github.cesarconte.subtitle_translator.service.SubtitleDocumentService;
+import io.github.cesarconte.subtitle_translator.service.SubtitleTimingService;
+import io.github.cesarconte.subtitle_translator.util.SrtWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * REST controller for server-side subtitle timing adjustments
+ */
+@RestController
+@RequestMapping("/api/timing")
+public class SubtitleTimingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubtitleTimingController.class);
+
+    private static final MediaType SUBRIP = MediaType.parseMediaType("application/x-subrip;charset=UTF-8");
+
+    private final SubtitleDocumentService subtitleDocumentService;
+    private final SubtitleTimingService subtitleTimingService;
+
+    public SubtitleTimingController(SubtitleDocumentService subtitleDocumentService,
+            SubtitleTimingService subtitleTimingService) {
+        this.subtitleDocumentService = subtitleDocumentService;
+        this.subtitleTimingService = subtitleTimingService;
+    }
+
+    /**
+     * Endpoint to shift, rescale and clean up the timing of an SRT file. The
+     * adjusted file is written block by block to the response (chunked).
+     *
+     * @param request SRT content and timing operations
+     * @return The adjusted SRT file
+     */
+    @PostMapping("/adjust")
+    public ResponseEntity<?> adjustTiming(@RequestBody TimingRequest request) {
+        ParsedSubtitleDocument document = subtitleDocumentService.parse(request.getSrtContent());
+        if (!document.isValid()) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new TranslationResponse(false, "The file does not have a valid SRT format"));
+        }
+
+        try {
+            CompactSubtitleDocument adjusted = subtitleTimingService.adjust(document.getSubtitles(), request);
+            StreamingResponseBody body = outputStream -> {
+                SrtWriter writer = new SrtWriter(outputStream);
+                writer.writeAll(adjusted);
+                writer.flush();
+            };
+            return ResponseEntity.ok().contentType(SUBRIP).body(body);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Invalid timing request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new TranslationResponse(false, e.getMessage()));
+        }
+    }
+}
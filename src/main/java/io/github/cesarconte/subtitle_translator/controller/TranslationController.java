@@ -1,27 +1,42 @@
 package io.github.cesarconte.subtitle_translator.controller;
 
-import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
-import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
 import io.github.cesarconte.subtitle_translator.model.TranslationRequest;
 import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
 import io.github.cesarconte.subtitle_translator.model.LanguageDetectionResponse;
 import io.github.cesarconte.subtitle_translator.model.TranslationProgress;
 import io.github.cesarconte.subtitle_translator.model.TranslationSession;
+import io.github.cesarconte.subtitle_translator.service.SubtitleDocumentService;
+import io.github.cesarconte.subtitle_translator.service.TranslationJobService;
 import io.github.cesarconte.subtitle_translator.service.TranslationService;
-import io.github.cesarconte.subtitle_translator.service.TranslationStorageService;
+import io.github.cesarconte.subtitle_translator.service.ProgressStreamService;
 import io.github.cesarconte.subtitle_translator.service.ProgressTrackingService;
-import io.github.cesarconte.subtitle_translator.util.SrtParser;
+import io.github.cesarconte.subtitle_translator.util.SrtWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
-
-import java.util.ArrayList;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller to manage subtitle translations
@@ -32,22 +47,25 @@ public class TranslationController {
 
     private static final Logger logger = LoggerFactory.getLogger(TranslationController.class);
 
+    private static final String SUBRIP_VALUE = "application/x-subrip";
+
     private final TranslationService translationService;
-    private final SrtParser srtParser;
+    private final SubtitleDocumentService subtitleDocumentService;
     private final ProgressTrackingService progressTrackingService;
-    private final TranslationStorageService translationStorageService;
-    private final ObjectMapper objectMapper;
+    private final TranslationJobService translationJobService;
+    private final ProgressStreamService progressStreamService;
 
     public TranslationController(
             TranslationService translationService,
-            SrtParser srtParser,
+            SubtitleDocumentService subtitleDocumentService,
             ProgressTrackingService progressTrackingService,
-            TranslationStorageService translationStorageService) {
+            TranslationJobService translationJobService,
+            ProgressStreamService progressStreamService) {
         this.translationService = translationService;
-        this.srtParser = srtParser;
+        this.subtitleDocumentService = subtitleDocumentService;
         this.progressTrackingService = progressTrackingService;
-        this.translationStorageService = translationStorageService;
-        this.objectMapper = new ObjectMapper();
+        this.translationJobService = translationJobService;
+        this.progressStreamService = progressStreamService;
     }
 
     /**
@@ -58,19 +76,73 @@ public class TranslationController {
      */
     @PostMapping("/init")
     public ResponseEntity<TranslationSession> initTranslation(@RequestBody TranslationRequest request) {
+        if (request.getDocumentId() != null) {
+            return startSession(() -> storedDocument(request.getDocumentId()), request);
+        }
+        return startSession(() -> subtitleDocumentService.parse(request.getSrtContent()), request);
+    }
+
+    /**
+     * Endpoint to initialize a translation session from an uploaded file
+     *
+     * @param request Translation options, as form fields
+     * @param file    SRT file (UTF-8)
+     * @return Response with session ID for progress tracking
+     */
+    @PostMapping(value = "/init", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<TranslationSession> initTranslationUpload(
+            @ModelAttribute TranslationRequest request,
+            @RequestPart("file") MultipartFile file) {
+        return startSession(() -> parseUpload(file), request);
+    }
+
+    /**
+     * Endpoint to initialize a translation session from the raw SRT file in
+     * the request body
+     *
+     * @param request Translation options, as query parameters
+     * @param content SRT file (UTF-8)
+     * @return Response with session ID for progress tracking
+     */
+    @PostMapping(value = "/init", consumes = SUBRIP_VALUE)
+    public ResponseEntity<TranslationSession> initTranslationRaw(
+            @ModelAttribute TranslationRequest request,
+            InputStream content) {
+        return startSession(() -> subtitleDocumentService.parse(content), request);
+    }
+
+    /**
+     * Starts a session for a parsed document and, if the request opts in with
+     * startTranslation, starts its translation right away. The later
+     * /subtitle call then attaches to the running job.
+     */
+    private ResponseEntity<TranslationSession> startSession(Callable<ParsedSubtitleDocument> parser,
+            TranslationRequest request) {
         try {
+            // Parse once; later stages of the session reuse the document
+            ParsedSubtitleDocument document = parser.call();
+
             // Validate SRT content
-            if (!srtParser.isValid(request.getSrtContent())) {
+            if (!document.isValid()) {
                 return ResponseEntity.badRequest().body(null);
             }
 
-            // Calculate total characters for progress tracking
-            int totalChars = calculateTotalCharacters(request.getSrtContent());
-
             // Start progress tracking and get session ID
-            String sessionId = progressTrackingService.startTracking(totalChars);
+            String sessionId = progressTrackingService.startTracking(document.getTotalChars());
+            subtitleDocumentService.register(sessionId, document);
+
+            if (request.isStartTranslation() && !request.targets().isEmpty()) {
+                // Speculative start: stored translations are found and new
+                // ones progress while the client sets up progress tracking
+                translationJobService.submit(sessionId, request, document);
+            }
 
             return ResponseEntity.ok(new TranslationSession(sessionId));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Translation queue full, rejecting speculative start");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error initializing translation", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -93,186 +165,238 @@ public class TranslationController {
     }
 
     /**
-     * Endpoint to translate subtitle files with progress tracking
+     * Endpoint to stream translation progress as Server-Sent Events. Updates
+     * are pushed as "progress" events and the stream closes when the
+     * translation completes or fails.
+     *
+     * @param sessionId Translation session ID
+     * @return Progress event stream
+     */
+    @GetMapping(value = "/progress/{sessionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProgress(@PathVariable String sessionId) {
+        SseEmitter emitter = progressStreamService.subscribe(sessionId);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session not found");
+        }
+        return emitter;
+    }
+
+    /**
+     * Endpoint to start a subtitle translation with progress tracking. The
+     * translation runs in the background; the result is fetched from
+     * {@code /result/{sessionId}} once the progress reaches "completed".
+     * The file is given by srtContent or documentId; without either, the
+     * file uploaded to /init is translated.
      *
      * @param request   Translation request data
      * @param sessionId Translation session ID for progress tracking
-     * @return Response with translated content
+     * @return 202 Accepted with the session ID
      */
     @PostMapping("/subtitle/{sessionId}")
-    public ResponseEntity<TranslationResponse> translateSubtitle(
+    public ResponseEntity<?> translateSubtitle(
             @RequestBody TranslationRequest request,
             @PathVariable String sessionId) {
-        try {
-            // Validate SRT content
-            if (!srtParser.isValid(request.getSrtContent())) {
-                progressTrackingService.completeTracking(sessionId, false, "Invalid SRT format");
-                return ResponseEntity
-                        .badRequest()
-                        .body(new TranslationResponse(false, "The file does not have a valid SRT format"));
-            }
-
-            // Check if we already have this translation in the database
-            Optional<Translation> existingTranslation = translationStorageService.findExistingTranslation(
-                    request.getSrtContent(),
-                    request.getSourceLanguage(),
-                    request.getTargetLanguage());
-
-            if (existingTranslation.isPresent()) {
-                logger.info("Found existing translation in database. Returning cached result.");
-
-                // Update progress to 100% immediately since we have the translation
-                int totalChars = calculateTotalCharacters(request.getSrtContent());
-                progressTrackingService.updateProgress(
-                        sessionId, "cached", "Using cached translation...", 0);
-                progressTrackingService.updateProgress(
-                        sessionId, "cached", "Translation found in database", totalChars);
-
-                Translation translation = existingTranslation.get();
-                List<TranslationResponse.SubtitleConfidence> confidenceData = new ArrayList<>();
-
-                try {
-                    // Convert JSON string to list of SubtitleConfidence objects
-                    if (translation.getConfidenceData() != null && !translation.getConfidenceData().isEmpty()) {
-                        confidenceData = objectMapper.readValue(
-                                translation.getConfidenceData(),
-                                objectMapper.getTypeFactory().constructCollectionType(
-                                        List.class,
-                                        TranslationResponse.SubtitleConfidence.class));
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error parsing confidence data from database", e);
-                    // Continue with empty confidence data if there's an error
-                }
-
-                // Mark translation as complete in progress tracking
-                progressTrackingService.completeTracking(sessionId, true, "Cached translation retrieved");
-
-                return ResponseEntity.ok(
-                        new TranslationResponse(translation.getTranslatedContent(),
-                                confidenceData,
-                                translation.getAverageConfidence()));
-            }
-
-            // Parse content
-            List<SubtitleBlock> subtitles = srtParser.parse(request.getSrtContent());
-
-            // Format validation: max 40 characters per line
-            List<io.github.cesarconte.subtitle_translator.util.SubtitleFormatValidator.ValidationResult> violations = io.github.cesarconte.subtitle_translator.util.SubtitleFormatValidator
-                    .validateLineLength(subtitles, 40);
-            String formatWarning = null;
-            if (!violations.isEmpty()) {
-                StringBuilder warningMsg = new StringBuilder(
-                        "Warning: The following lines exceed 40 characters per line:\n");
-                for (io.github.cesarconte.subtitle_translator.util.SubtitleFormatValidator.ValidationResult v : violations) {
-                    warningMsg.append(String.format("Subtitle #%d, line %d (%d chars): %s\n", v.subtitleId,
-                            v.lineNumber, v.length, v.lineContent));
-                }
-                formatWarning = warningMsg.toString();
-                logger.warn(formatWarning);
-            }
-
-            // Get source and target languages
-            String sourceLang = "auto".equals(request.getSourceLanguage()) ? null : request.getSourceLanguage();
-            String targetLang = request.getTargetLanguage();
-
-            // Update progress to preparing phase
-            progressTrackingService.updateProgress(
-                    sessionId, "preparing", "Preparing content for translation...", 0);
+        ResponseEntity<?> started = attachToStartedJob(sessionId, request);
+        if (started != null) {
+            return started;
+        }
 
-            // Perform translation with progress tracking
-            List<SubtitleBlock> translatedSubtitles = translationService.translateSubtitlesWithProgress(
-                    subtitles, targetLang, sourceLang, sessionId, progressTrackingService);
+        ParsedSubtitleDocument document;
+        if (request.getDocumentId() != null) {
+            document = storedDocument(request.getDocumentId());
+            subtitleDocumentService.register(sessionId, document);
+        } else {
+            document = subtitleDocumentService.forSession(sessionId, request.getSrtContent());
+        }
+        return submitTranslation(sessionId, request, document);
+    }
 
-            // Update progress to finalizing phase
-            int totalChars = progressTrackingService.getProgress(sessionId).getTotalChars();
-            progressTrackingService.updateProgress(
-                    sessionId, "finalizing", "Finalizing translation...", totalChars);
+    /**
+     * Endpoint to start a subtitle translation with the options as form
+     * fields and, optionally, the file as a multipart upload
+     *
+     * @param request   Translation options
+     * @param file      SRT file (UTF-8); if missing, the file uploaded to
+     *                  /init is translated
+     * @param sessionId Translation session ID for progress tracking
+     * @return 202 Accepted with the session ID
+     */
+    @PostMapping(value = "/subtitle/{sessionId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> translateSubtitleUpload(
+            @ModelAttribute TranslationRequest request,
+            @RequestPart(value = "file", required = false) MultipartFile file,
+            @PathVariable String sessionId) throws IOException {
+        ResponseEntity<?> started = attachToStartedJob(sessionId, request);
+        if (started != null) {
+            return started;
+        }
 
-            // Generate translated SRT content
-            String translatedContent = srtParser.generate(translatedSubtitles);
+        ParsedSubtitleDocument document;
+        if (file == null) {
+            document = subtitleDocumentService.forSession(sessionId, request.getSrtContent());
+        } else {
+            document = parseUpload(file);
+            subtitleDocumentService.register(sessionId, document);
+        }
+        return submitTranslation(sessionId, request, document);
+    }
 
-            // If there was a format warning, append it to the translated content (or handle
-            // as needed)
-            if (formatWarning != null) {
-                translatedContent = "WARNING: Some lines exceed 40 characters per line.\n" + formatWarning + "\n"
-                        + translatedContent;
-            }
+    /**
+     * Endpoint to start a subtitle translation of the raw SRT file in the
+     * request body, with the options as query parameters
+     *
+     * @param request   Translation options
+     * @param content   SRT file (UTF-8)
+     * @param sessionId Translation session ID for progress tracking
+     * @return 202 Accepted with the session ID
+     */
+    @PostMapping(value = "/subtitle/{sessionId}", consumes = SUBRIP_VALUE)
+    public ResponseEntity<?> translateSubtitleRaw(
+            @ModelAttribute TranslationRequest request,
+            InputStream content,
+            @PathVariable String sessionId) {
+        ResponseEntity<?> started = attachToStartedJob(sessionId, request);
+        if (started != null) {
+            return started;
+        }
 
-            // Prepare confidence data for the response
-            List<TranslationResponse.SubtitleConfidence> confidenceData = new ArrayList<>();
-            double totalConfidence = 0;
+        ParsedSubtitleDocument document = subtitleDocumentService.parse(content);
+        subtitleDocumentService.register(sessionId, document);
+        return submitTranslation(sessionId, request, document);
+    }
 
-            for (SubtitleBlock subtitle : translatedSubtitles) {
-                confidenceData.add(new TranslationResponse.SubtitleConfidence(
-                        subtitle.getId(),
-                        subtitle.getConfidenceScore(),
-                        subtitle.getConfidenceLevel()));
-                totalConfidence += subtitle.getConfidenceScore();
-            }
+    private ResponseEntity<?> submitTranslation(String sessionId, TranslationRequest request,
+            ParsedSubtitleDocument document) {
+        if (document == null) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new TranslationResponse(false, "No SRT content provided for this session"));
+        }
 
-            // Calculate average confidence
-            double averageConfidence = translatedSubtitles.isEmpty() ? 1.0
-                    : totalConfidence / translatedSubtitles.size();
-
-            // Store translation in database
-            String confidenceDataJson;
-            try {
-                confidenceDataJson = objectMapper.writeValueAsString(confidenceData);
-            } catch (Exception e) {
-                logger.warn("Error serializing confidence data", e);
-                confidenceDataJson = "[]";
-            }
+        // Validate SRT content
+        if (!document.isValid()) {
+            subtitleDocumentService.evict(sessionId);
+            progressTrackingService.completeTracking(sessionId, false, "Invalid SRT format");
+            return ResponseEntity
+                    .badRequest()
+                    .body(new TranslationResponse(false, "The file does not have a valid SRT format"));
+        }
 
-            // Calculate confidence level
-            String confidenceLevel;
-            if (averageConfidence >= 0.8) {
-                confidenceLevel = "high";
-            } else if (averageConfidence >= 0.5) {
-                confidenceLevel = "medium";
-            } else {
-                confidenceLevel = "low";
-            }
+        try {
+            translationJobService.submit(sessionId, request, document);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Translation queue full, rejecting session {}", sessionId);
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new TranslationResponse(false,
+                            "Too many translations in progress. Please try again later."));
+        }
 
-            // Save the translation to the database
-            translationStorageService.saveTranslation(
-                    request.getFileName() != null ? request.getFileName() : "subtitle.srt",
-                    request.getSrtContent(),
-                    request.getSourceLanguage(),
-                    request.getTargetLanguage(),
-                    translatedContent,
-                    confidenceDataJson,
-                    averageConfidence,
-                    confidenceLevel);
+        return accepted(sessionId);
+    }
 
-            // Mark translation as complete in progress tracking
-            progressTrackingService.completeTracking(sessionId, true, "Translation completed");
+    /**
+     * Answers a /subtitle call for a session whose translation was already
+     * started at /init
+     *
+     * @return The response, or null if the session has no job yet
+     */
+    private ResponseEntity<?> attachToStartedJob(String sessionId, TranslationRequest request) {
+        Optional<Boolean> submitted = translationJobService.submittedFor(sessionId, request);
+        if (submitted.isEmpty()) {
+            return null;
+        }
+        if (!submitted.get()) {
+            return ResponseEntity
+                    .status(HttpStatus.CONFLICT)
+                    .body(new TranslationResponse(false,
+                            "The translation of this session was started for other languages"));
+        }
+        return accepted(sessionId);
+    }
 
-            return ResponseEntity.ok(
-                    new TranslationResponse(translatedContent, confidenceData, averageConfidence));
+    private static ResponseEntity<TranslationSession> accepted(String sessionId) {
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/translate/result/" + sessionId))
+                .body(new TranslationSession(sessionId));
+    }
 
-        } catch (Exception e) {
-            logger.error("Error translating SRT file", e);
-            // Update progress with error
-            progressTrackingService.completeTracking(sessionId, false, e.getMessage());
+    /**
+     * Endpoint to fetch the result of a subtitle translation
+     *
+     * @param sessionId Translation session ID
+     * @return 200 with the translated content, 202 with the current progress
+     *         while the translation is running, or 404 for unknown sessions
+     */
+    @GetMapping("/result/{sessionId}")
+    public ResponseEntity<?> getResult(@PathVariable String sessionId) {
+        Optional<TranslationResponse> result = translationJobService.getResult(sessionId);
+        if (result.isPresent()) {
             return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new TranslationResponse(false, "Error translating: " + e.getMessage()));
+                    .status(result.get().isSuccess() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(result.get());
+        }
+        if (translationJobService.isPending(sessionId)) {
+            return ResponseEntity.accepted().body(progressTrackingService.getProgress(sessionId));
         }
+        return ResponseEntity.notFound().build();
     }
 
     /**
-     * Calculate total character count from SRT content for progress tracking
+     * Endpoint to download the translated SRT file of a session. The file is
+     * written block by block to the response (chunked), and a format warning,
+     * if any, is reported in the X-Format-Warning header instead of the content.
+     *
+     * @param sessionId      Translation session ID
+     * @param targetLanguage Language to download, required when the session
+     *                       translated into several languages
+     * @return 200 with the SRT file, 202 with the current progress while the
+     *         translation is running, or 404 for unknown sessions
      */
-    private int calculateTotalCharacters(String srtContent) {
-        List<SubtitleBlock> blocks = srtParser.parse(srtContent);
-        int totalChars = 0;
-        for (SubtitleBlock block : blocks) {
-            for (String line : block.getText()) {
-                totalChars += line.length();
+    @GetMapping("/result/{sessionId}/download")
+    public ResponseEntity<?> downloadResult(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String targetLanguage) {
+        Optional<TranslationResponse> result = translationJobService.getResult(sessionId);
+        if (result.isEmpty()) {
+            if (translationJobService.isPending(sessionId)) {
+                return ResponseEntity.accepted().body(progressTrackingService.getProgress(sessionId));
+            }
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!result.get().isSuccess()) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result.get());
+        }
+        TranslationResponse response = result.get().forTargetLanguage(targetLanguage);
+        if (response == null) {
+            return ResponseEntity.badRequest()
+                    .body(new TranslationResponse(false, "Choose one of the target languages of the session"));
+        }
+        String fileName = downloadName(result.get().getFileName(), response.getTargetLanguage());
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (response.getTranslatedSubtitles() != null) {
+                new SrtWriter(writer).writeAll(response.getTranslatedSubtitles());
+            } else {
+                // Translations loaded from the database only have the content
+                writer.write(response.getTranslatedContent());
             }
+            writer.flush();
+        };
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName)
+                        .build()
+                        .toString());
+        if (result.get().getFormatWarning() != null) {
+            builder.header("X-Format-Warning", "Some lines exceed 40 characters per line");
         }
-        return totalChars;
+        return builder.body(body);
     }
 
     /**
@@ -318,6 +442,9 @@ public class TranslationController {
      */
     @PostMapping("/detect-language")
     public ResponseEntity<LanguageDetectionResponse> detectLanguage(@RequestBody TranslationRequest request) {
+        if (request.getDocumentId() != null) {
+            return detectLanguage(() -> storedDocument(request.getDocumentId()));
+        }
         try {
             String srtContent = request.getSrtContent();
             if (srtContent == null || srtContent.trim().isEmpty()) {
@@ -333,6 +460,64 @@ public class TranslationController {
         }
     }
 
+    /**
+     * Endpoint to detect the language of an uploaded SRT file
+     *
+     * @param file SRT file (UTF-8)
+     * @return Detected language and confidence
+     */
+    @PostMapping(value = "/detect-language", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<LanguageDetectionResponse> detectLanguageUpload(@RequestPart("file") MultipartFile file) {
+        return detectLanguage(() -> parseUpload(file));
+    }
+
+    /**
+     * Endpoint to detect the language of the raw SRT file in the request body
+     *
+     * @param content SRT file (UTF-8)
+     * @return Detected language and confidence
+     */
+    @PostMapping(value = "/detect-language", consumes = SUBRIP_VALUE)
+    public ResponseEntity<LanguageDetectionResponse> detectLanguageRaw(InputStream content) {
+        return detectLanguage(() -> subtitleDocumentService.parse(content));
+    }
+
+    private ResponseEntity<LanguageDetectionResponse> detectLanguage(Callable<ParsedSubtitleDocument> parser) {
+        try {
+            ParsedSubtitleDocument document = parser.call();
+            if (document.getSubtitles().size() == 0) {
+                return ResponseEntity.badRequest()
+                        .body(new LanguageDetectionResponse(false, "No SRT content provided"));
+            }
+            return ResponseEntity.ok(translationService.detectLanguage(document.getSubtitles()));
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error detecting language", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new LanguageDetectionResponse(false, "Error detecting language: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Gets a document uploaded to /api/documents
+     *
+     * @throws ResponseStatusException 404 if the handle is unknown or expired
+     */
+    private ParsedSubtitleDocument storedDocument(String documentId) {
+        return subtitleDocumentService.getStored(documentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found"));
+    }
+
+    /**
+     * Parses an uploaded file while it is read
+     */
+    private ParsedSubtitleDocument parseUpload(MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return subtitleDocumentService.parse(content);
+        }
+    }
+
     /**
      * Endpoint to list available DeepL glossaries for the configured account
      * 
@@ -348,4 +533,18 @@ public class TranslationController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Name of a downloaded translation: the uploaded file's name with the
+     * target language before the extension ("episode01.es.srt")
+     */
+    private static String downloadName(String uploadedName, String targetLanguage) {
+        String name = uploadedName != null && !uploadedName.isBlank() ? uploadedName : "subtitle.srt";
+        if (name.toLowerCase(Locale.ROOT).endsWith(".srt")) {
+            name = name.substring(0, name.length() - ".srt".length());
+        }
+        return targetLanguage != null
+                ? name + "." + targetLanguage.toLowerCase(Locale.ROOT) + ".srt"
+                : name + ".srt";
+    }
+}
@@ -1,14 +1,19 @@
 package io.github.cesarconte.subtitle_translator.controller;
 
 import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.model.TranslationSummary;
 import io.github.cesarconte.subtitle_translator.repository.TranslationRepository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import io.github.cesarconte.subtitle_translator.service.TranslationAccessTracker;
+import io.github.cesarconte.subtitle_translator.service.TranslationStorageService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,37 +26,55 @@ import java.util.Optional;
 @RequestMapping("/api/history")
 public class TranslationHistoryController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final TranslationRepository translationRepository;
+    private final TranslationAccessTracker accessTracker;
+    private final TranslationStorageService translationStorageService;
 
-    public TranslationHistoryController(TranslationRepository translationRepository) {
+    public TranslationHistoryController(TranslationRepository translationRepository,
+            TranslationAccessTracker accessTracker, TranslationStorageService translationStorageService) {
         this.translationRepository = translationRepository;
+        this.accessTracker = accessTracker;
+        this.translationStorageService = translationStorageService;
     }
 
     /**
-     * Obtiene el historial de traducciones paginado
+     * Obtiene el historial de traducciones, del último acceso más reciente al
+     * más antiguo, con paginación por cursor
      * 
-     * @param page Número de página (0-indexed)
-     * @param size Tamaño de la página
-     * @return Lista paginada de traducciones
+     * @param cursor Cursor devuelto con la página anterior (nextCursor), o
+     *               ninguno para la primera página
+     * @param size   Tamaño de la página
+     * @return Resúmenes de las traducciones, sin contenidos, y el cursor de la
+     *         página siguiente
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> getTranslationHistory(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
 
-        // Crear paginación y ordenamiento
-        Pageable paging = PageRequest.of(page, size,
-                Sort.by("lastAccessedAt").descending());
-        Page<Translation> pageTranslations = translationRepository.findAll(paging);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        LocalDateTime afterAccess = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterAccess = LocalDateTime.parse(position[0]);
+            afterId = position[1];
+        }
 
-        // Extraer contenido y metadatos
-        List<Translation> translations = pageTranslations.getContent();
+        // Se pide una traducción de más para saber si hay página siguiente
+        List<TranslationSummary> translations = translationStorageService.findHistory(afterAccess, afterId,
+                pageSize + 1);
+        boolean hasMore = translations.size() > pageSize;
+        if (hasMore) {
+            translations = translations.subList(0, pageSize);
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("translations", translations);
-        response.put("currentPage", pageTranslations.getNumber());
-        response.put("totalItems", pageTranslations.getTotalElements());
-        response.put("totalPages", pageTranslations.getTotalPages());
+        response.put("hasMore", hasMore);
+        response.put("nextCursor", hasMore ? encodeCursor(translations.get(pageSize - 1)) : null);
 
         return ResponseEntity.ok(response);
     }
@@ -68,9 +91,13 @@ public class TranslationHistoryController {
 
         if (translation.isPresent()) {
             Translation result = translation.get();
-            // Actualizar stats de acceso
+            // Actualizar stats de acceso: se registran y se escriben en lote,
+            // la copia devuelta ya refleja este acceso
             result.updateAccess();
-            translationRepository.save(result);
+            accessTracker.recordAccess(result.getId());
+            // Los contenidos están en el almacén de contenidos
+            result.setOriginalContent(translationStorageService.getOriginalContent(result));
+            result.setTranslatedContent(translationStorageService.getTranslatedContent(result));
             return ResponseEntity.ok(result);
         } else {
             return ResponseEntity.notFound().build();
@@ -78,18 +105,44 @@ public class TranslationHistoryController {
     }
 
     /**
-     * Elimina una traducción específica por su ID
+     * Elimina una traducción específica por su ID, junto con los contenidos
+     * que ya no use ninguna otra traducción
      * 
      * @param id ID de la traducción
      * @return 204 No Content si se eliminó correctamente
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTranslation(@PathVariable String id) {
-        if (translationRepository.existsById(id)) {
-            translationRepository.deleteById(id);
+        if (translationStorageService.deleteTranslation(id)) {
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Codifica la posición de la última traducción listada
+     */
+    private static String encodeCursor(TranslationSummary last) {
+        String position = last.getLastAccessedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor en la fecha de último acceso y el ID
+     */
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\|", 2);
+            if (position.length != 2 || position[1].isEmpty()) {
+                throw new IllegalArgumentException("Incomplete cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid history cursor");
+        }
+    }
 }
@@ -6,6 +6,8 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
@@ -58,6 +60,47 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
     }
 
+    /**
+     * Handles connection errors of the non-blocking DeepL client
+     */
+    @ExceptionHandler(WebClientRequestException.class)
+    public ResponseEntity<TranslationResponse> handleWebClientRequestException(WebClientRequestException ex) {
+        String errorMessage = "Could not connect to the translation service. Please try again later.";
+
+        if (ex.getCause() instanceof ConnectException) {
+            errorMessage = "Connection error with the translation service. Please check your internet connection.";
+        }
+
+        TranslationResponse response = new TranslationResponse(false, errorMessage);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
+    /**
+     * Handles HTTP errors returned to the non-blocking DeepL client
+     */
+    @ExceptionHandler(WebClientResponseException.class)
+    public ResponseEntity<TranslationResponse> handleWebClientResponseException(WebClientResponseException ex) {
+        String errorMessage = "Error in the translation service: ";
+
+        switch (ex.getStatusCode().value()) {
+            case 401:
+                errorMessage += "Invalid API key";
+                break;
+            case 403:
+                errorMessage += "Access denied";
+                break;
+            case 429:
+            case 456:
+                errorMessage += "Usage limit exceeded. Please try again later";
+                break;
+            default:
+                errorMessage += ex.getStatusText();
+        }
+
+        TranslationResponse response = new TranslationResponse(false, errorMessage);
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
+    }
+
     /**
      * Handles generic exceptions
      */
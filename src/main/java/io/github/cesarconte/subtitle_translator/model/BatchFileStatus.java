@@ -0,0 +1,43 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+/**
+ * Model for the state of one file of a batch
+ */
+public class BatchFileStatus {
+    private String fileName;
+    private String sessionId; // Progress tracking session of this file
+    private TranslationProgress progress;
+
+    public BatchFileStatus() {
+    }
+
+    public BatchFileStatus(String fileName, String sessionId, TranslationProgress progress) {
+        this.fileName = fileName;
+        this.sessionId = sessionId;
+        this.progress = progress;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public TranslationProgress getProgress() {
+        return progress;
+    }
+
+    public void setProgress(TranslationProgress progress) {
+        this.progress = progress;
+    }
+}
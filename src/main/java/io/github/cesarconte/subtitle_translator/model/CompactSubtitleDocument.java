@@ -0,0 +1,339 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+import io.github.cesarconte.subtitle_translator.util.TimecodeParser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, immutable representation of the subtitles of a file.
+ *
+ * Instead of one object per block (plus its time code string and line
+ * array), the document keeps parallel primitive arrays for IDs, start and
+ * end times and confidence scores, and all the text in a single char buffer
+ * with line offsets. {@link SubtitleBlock}s are only created as views at the
+ * API boundary.
+ */
+public final class CompactSubtitleDocument {
+    private final int size;
+    private final int[] ids;
+    private final int[] startMs;
+    private final int[] endMs;
+    private final double[] confidenceScores;
+    // Index of the first line of each block; blockFirstLine[size] is the line count
+    private final int[] blockFirstLine;
+    // End offset of each line in the text buffer (lines are separated by '\n')
+    private final int[] lineEnds;
+    private final char[] text;
+    // Time codes that cannot be rebuilt from the parsed times, by block index
+    private final Map<Integer, String> rawTimeCodes;
+
+    private CompactSubtitleDocument(CompactSubtitleDocument source, int[] startMs, int[] endMs,
+            Map<Integer, String> rawTimeCodes) {
+        this.size = source.size;
+        this.ids = source.ids;
+        this.startMs = startMs;
+        this.endMs = endMs;
+        this.confidenceScores = source.confidenceScores;
+        this.blockFirstLine = source.blockFirstLine;
+        this.lineEnds = source.lineEnds;
+        this.text = source.text;
+        this.rawTimeCodes = rawTimeCodes;
+    }
+
+    private CompactSubtitleDocument(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.startMs = Arrays.copyOf(builder.startMs, size);
+        this.endMs = Arrays.copyOf(builder.endMs, size);
+        this.confidenceScores = Arrays.copyOf(builder.confidenceScores, size);
+        this.blockFirstLine = Arrays.copyOf(builder.blockFirstLine, size + 1);
+        this.blockFirstLine[size] = builder.lineCount;
+        this.lineEnds = Arrays.copyOf(builder.lineEnds, builder.lineCount);
+        this.text = new char[builder.text.length()];
+        builder.text.getChars(0, text.length, text, 0);
+        this.rawTimeCodes = builder.rawTimeCodes.isEmpty() ? Map.of() : Map.copyOf(builder.rawTimeCodes);
+    }
+
+    /**
+     * Creates a builder
+     *
+     * @param expectedBlocks Expected number of blocks, used to size the arrays
+     * @return A new builder
+     */
+    public static Builder builder(int expectedBlocks) {
+        return new Builder(expectedBlocks);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Start time of a block in milliseconds, or -1 if its time code could not
+     * be parsed
+     */
+    public int getStartMs(int index) {
+        return startMs[index];
+    }
+
+    /**
+     * End time of a block in milliseconds, or -1 if its time code could not
+     * be parsed
+     */
+    public int getEndMs(int index) {
+        return endMs[index];
+    }
+
+    public double getConfidenceScore(int index) {
+        return confidenceScores[index];
+    }
+
+    /**
+     * Time code of a block as it appeared in the file
+     */
+    public String getTimeCode(int index) {
+        String raw = rawTimeCodes.get(index);
+        return raw != null ? raw : TimecodeParser.format(startMs[index], endMs[index]);
+    }
+
+    /**
+     * Appends the time code of a block, without creating a string for it
+     */
+    public void appendTimeCode(int index, StringBuilder sb) {
+        String raw = rawTimeCodes.get(index);
+        if (raw != null) {
+            sb.append(raw);
+        } else {
+            TimecodeParser.appendTime(sb, startMs[index]);
+            sb.append(" --> ");
+            TimecodeParser.appendTime(sb, endMs[index]);
+        }
+    }
+
+    public int getLineCount(int index) {
+        return blockFirstLine[index + 1] - blockFirstLine[index];
+    }
+
+    public String getLine(int index, int line) {
+        int lineIndex = blockFirstLine[index] + line;
+        int start = lineStart(lineIndex);
+        return new String(text, start, lineEnds[lineIndex] - start);
+    }
+
+    /**
+     * Text of a block, lines joined with "\n"
+     */
+    public String getText(int index) {
+        if (getLineCount(index) == 0) {
+            return "";
+        }
+        int start = lineStart(blockFirstLine[index]);
+        return new String(text, start, lineEnds[blockFirstLine[index + 1] - 1] - start);
+    }
+
+    /**
+     * Length of the text of a block, lines joined with "\n"
+     */
+    public int getTextLength(int index) {
+        if (getLineCount(index) == 0) {
+            return 0;
+        }
+        return lineEnds[blockFirstLine[index + 1] - 1] - lineStart(blockFirstLine[index]);
+    }
+
+    /**
+     * Writes the text of a block, lines joined with "\n", straight from the
+     * text buffer
+     */
+    public void writeText(int index, Writer writer) throws IOException {
+        if (getLineCount(index) > 0) {
+            int start = lineStart(blockFirstLine[index]);
+            writer.write(text, start, lineEnds[blockFirstLine[index + 1] - 1] - start);
+        }
+    }
+
+    /**
+     * Builds a subtitle block for one entry
+     */
+    public SubtitleBlock getBlock(int index) {
+        String[] lines = new String[getLineCount(index)];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = getLine(index, i);
+        }
+        return new SubtitleBlock(ids[index], getTimeCode(index), lines, confidenceScores[index]);
+    }
+
+    /**
+     * Read-only list view of the blocks; each element is built on access
+     */
+    public List<SubtitleBlock> asBlocks() {
+        return new AbstractList<>() {
+            @Override
+            public SubtitleBlock get(int index) {
+                return getBlock(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Read-only list view of the text of each block
+     */
+    public List<String> asTexts() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getText(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Creates a copy of the document with new times. Text, IDs and scores
+     * are shared, not copied. Blocks whose time code could not be parsed
+     * (start time -1) keep their original time code.
+     *
+     * @param newStartMs Start time of each block in milliseconds
+     * @param newEndMs   End time of each block in milliseconds
+     * @return The retimed document
+     */
+    public CompactSubtitleDocument withTimes(int[] newStartMs, int[] newEndMs) {
+        if (newStartMs.length != size || newEndMs.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " times");
+        }
+        Map<Integer, String> unparsedTimeCodes = new HashMap<>();
+        for (Map.Entry<Integer, String> entry : rawTimeCodes.entrySet()) {
+            if (startMs[entry.getKey()] < 0) {
+                unparsedTimeCodes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new CompactSubtitleDocument(this, newStartMs.clone(), newEndMs.clone(),
+                unparsedTimeCodes.isEmpty() ? Map.of() : Map.copyOf(unparsedTimeCodes));
+    }
+
+    private int lineStart(int lineIndex) {
+        return lineIndex == 0 ? 0 : lineEnds[lineIndex - 1] + 1;
+    }
+
+    /**
+     * Accumulates blocks into growable primitive arrays
+     */
+    public static final class Builder {
+        private int size;
+        private int lineCount;
+        private int[] ids;
+        private int[] startMs;
+        private int[] endMs;
+        private double[] confidenceScores;
+        private int[] blockFirstLine;
+        private int[] lineEnds;
+        private final StringBuilder text = new StringBuilder();
+        private final Map<Integer, String> rawTimeCodes = new HashMap<>();
+
+        private Builder(int expectedBlocks) {
+            int capacity = Math.max(16, expectedBlocks);
+            ids = new int[capacity];
+            startMs = new int[capacity];
+            endMs = new int[capacity];
+            confidenceScores = new double[capacity];
+            blockFirstLine = new int[capacity + 1];
+            lineEnds = new int[capacity * 2];
+        }
+
+        /**
+         * Adds a block with full confidence
+         */
+        public Builder add(int id, String timeCode, List<String> lines) {
+            return add(id, timeCode, lines, 1.0);
+        }
+
+        /**
+         * Adds a block
+         *
+         * @param id              Block identification number
+         * @param timeCode        Time code of the block
+         * @param lines           Text lines (must not contain line breaks)
+         * @param confidenceScore Translation confidence score (0.0 - 1.0)
+         * @return This builder
+         */
+        public Builder add(int id, String timeCode, List<String> lines, double confidenceScore) {
+            int start = (int) TimecodeParser.parseStart(timeCode);
+            int end = (int) TimecodeParser.parseEnd(timeCode);
+            boolean canonical = start >= 0 && TimecodeParser.format(start, end).equals(timeCode);
+            return append(id, start, end, canonical ? null : timeCode, lines, confidenceScore);
+        }
+
+        /**
+         * Adds a block with the ID and time code of a block of another
+         * document, without parsing the time code again
+         *
+         * @param source          Document the block comes from
+         * @param index           Position of the block in the source document
+         * @param lines           New text lines
+         * @param confidenceScore Translation confidence score (0.0 - 1.0)
+         * @return This builder
+         */
+        public Builder addFrom(CompactSubtitleDocument source, int index, List<String> lines,
+                double confidenceScore) {
+            return append(source.ids[index], source.startMs[index], source.endMs[index],
+                    source.rawTimeCodes.get(index), lines, confidenceScore);
+        }
+
+        private Builder append(int id, int start, int end, String rawTimeCode, List<String> lines,
+                double confidenceScore) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                startMs = Arrays.copyOf(startMs, capacity);
+                endMs = Arrays.copyOf(endMs, capacity);
+                confidenceScores = Arrays.copyOf(confidenceScores, capacity);
+                blockFirstLine = Arrays.copyOf(blockFirstLine, capacity + 1);
+            }
+
+            ids[size] = id;
+            startMs[size] = start;
+            endMs[size] = end;
+            confidenceScores[size] = confidenceScore;
+            if (rawTimeCode != null) {
+                rawTimeCodes.put(size, rawTimeCode);
+            }
+
+            blockFirstLine[size] = lineCount;
+            for (String line : lines) {
+                if (lineCount == lineEnds.length) {
+                    lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+                }
+                if (lineCount > 0) {
+                    text.append('\n');
+                }
+                text.append(line);
+                lineEnds[lineCount++] = text.length();
+            }
+            size++;
+            return this;
+        }
+
+        public CompactSubtitleDocument build() {
+            return new CompactSubtitleDocument(this);
+        }
+    }
+}
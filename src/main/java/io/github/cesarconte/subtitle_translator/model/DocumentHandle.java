@@ -0,0 +1,43 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+/**
+ * Model for a stored subtitle document
+ */
+public class DocumentHandle {
+    private String documentId; // Hash of the document content
+    private int subtitleCount;
+    private int totalChars;
+
+    public DocumentHandle() {
+    }
+
+    public DocumentHandle(String documentId, int subtitleCount, int totalChars) {
+        this.documentId = documentId;
+        this.subtitleCount = subtitleCount;
+        this.totalChars = totalChars;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public int getSubtitleCount() {
+        return subtitleCount;
+    }
+
+    public void setSubtitleCount(int subtitleCount) {
+        this.subtitleCount = subtitleCount;
+    }
+
+    public int getTotalChars() {
+        return totalChars;
+    }
+
+    public void setTotalChars(int totalChars) {
+        this.totalChars = totalChars;
+    }
+}
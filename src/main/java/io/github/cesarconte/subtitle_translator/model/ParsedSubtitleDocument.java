@@ -0,0 +1,73 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+import java.util.List;
+
+/**
+ * Result of parsing an SRT file once.
+ *
+ * Carries everything the later stages need (validity, the subtitles in
+ * compact form, character counts and the content hash) so that validation,
+ * progress tracking, translation and storage share a single parse.
+ */
+public final class ParsedSubtitleDocument {
+    private final boolean valid;
+    private final String contentHash;
+    private final CompactSubtitleDocument subtitles;
+    private final int totalChars;
+
+    /**
+     * @param valid       Whether every block has a valid SRT structure
+     * @param contentHash MD5 hash of the original content
+     * @param subtitles   Parsed subtitles
+     */
+    public ParsedSubtitleDocument(boolean valid, String contentHash, CompactSubtitleDocument subtitles) {
+        this.valid = valid;
+        this.contentHash = contentHash;
+        this.subtitles = subtitles;
+        int chars = 0;
+        for (int i = 0; i < subtitles.size(); i++) {
+            chars += subtitles.getTextLength(i);
+        }
+        this.totalChars = chars;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public CompactSubtitleDocument getSubtitles() {
+        return subtitles;
+    }
+
+    /**
+     * Subtitle blocks, built on access from the compact representation
+     */
+    public List<SubtitleBlock> getBlocks() {
+        return subtitles.asBlocks();
+    }
+
+    /**
+     * Text of each block as sent for translation, lines joined with "\n"
+     */
+    public List<String> getSegmentTexts() {
+        return subtitles.asTexts();
+    }
+
+    /**
+     * Characters of one block as sent for translation
+     *
+     * @param index Position of the block
+     * @return Number of characters
+     */
+    public int getBlockChars(int index) {
+        return subtitles.getTextLength(index);
+    }
+
+    public int getTotalChars() {
+        return totalChars;
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * Modelo para la memoria de traducción por segmento.
+ * El ID es la clave del segmento: hash del texto normalizado, par de idiomas y
+ * opciones de traducción, de modo que la búsqueda es directa por _id.
+ */
+@Data
+@Document(collection = "segment_translations")
+public class SegmentTranslation {
+
+    @Id
+    private String id;
+
+    // Idioma de origen ("auto" si se detectó automáticamente)
+    private String sourceLanguage;
+
+    // Idioma destino
+    private String targetLanguage;
+
+    // Texto traducido del segmento
+    private String translatedText;
+
+    // Fecha de creación
+    private LocalDateTime createdAt;
+
+    // Constructor por defecto
+    public SegmentTranslation() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public SegmentTranslation(String id, String sourceLanguage, String targetLanguage, String translatedText) {
+        this();
+        this.id = id;
+        this.sourceLanguage = sourceLanguage;
+        this.targetLanguage = targetLanguage;
+        this.translatedText = translatedText;
+    }
+}
@@ -84,6 +84,16 @@ public class SubtitleBlock {
      * @return Confidence category: "high", "medium" or "low"
      */
     public String getConfidenceLevel() {
+        return confidenceLevel(confidenceScore);
+    }
+
+    /**
+     * Gets the category of a confidence score
+     *
+     * @param confidenceScore Translation confidence score (0.0 - 1.0)
+     * @return Confidence category: "high", "medium" or "low"
+     */
+    public static String confidenceLevel(double confidenceScore) {
         if (confidenceScore >= 0.8) {
             return "high";
         } else if (confidenceScore >= 0.5) {
@@ -0,0 +1,29 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * Contenido de un archivo de subtítulos almacenado una sola vez y comprimido.
+ * Las traducciones guardan solo el hash con el que se identifica, así un
+ * mismo original se comparte entre todos los pares de idiomas.
+ */
+@Data
+@Document(collection = "subtitle_contents")
+public class SubtitleContent {
+
+    // Hash MD5 del contenido
+    @Id
+    private String hash;
+
+    // Contenido en UTF-8 comprimido con gzip
+    private byte[] data;
+
+    // Tamaño sin comprimir en bytes
+    private Long size;
+
+    // Fecha de creación
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,73 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+/**
+ * DTO for a subtitle timing adjustment request. Operations are applied in
+ * this order: frame rate scaling, shift, minimum duration and overlap
+ * clamping.
+ */
+public class TimingRequest {
+    private String srtContent;
+    // Milliseconds added to every time (negative to advance)
+    private long shiftMs;
+    // Frame rates to convert between (e.g. 23.976 to 25); both or neither
+    private Double sourceFrameRate;
+    private Double targetFrameRate;
+    // Minimum time each subtitle stays on screen (0 to disable)
+    private int minDurationMs;
+    // Shorten subtitles that overlap the next one
+    private boolean clampOverlaps;
+
+    /**
+     * Default constructor
+     */
+    public TimingRequest() {
+    }
+
+    public String getSrtContent() {
+        return srtContent;
+    }
+
+    public void setSrtContent(String srtContent) {
+        this.srtContent = srtContent;
+    }
+
+    public long getShiftMs() {
+        return shiftMs;
+    }
+
+    public void setShiftMs(long shiftMs) {
+        this.shiftMs = shiftMs;
+    }
+
+    public Double getSourceFrameRate() {
+        return sourceFrameRate;
+    }
+
+    public void setSourceFrameRate(Double sourceFrameRate) {
+        this.sourceFrameRate = sourceFrameRate;
+    }
+
+    public Double getTargetFrameRate() {
+        return targetFrameRate;
+    }
+
+    public void setTargetFrameRate(Double targetFrameRate) {
+        this.targetFrameRate = targetFrameRate;
+    }
+
+    public int getMinDurationMs() {
+        return minDurationMs;
+    }
+
+    public void setMinDurationMs(int minDurationMs) {
+        this.minDurationMs = minDurationMs;
+    }
+
+    public boolean isClampOverlaps() {
+        return clampOverlaps;
+    }
+
+    public void setClampOverlaps(boolean clampOverlaps) {
+        this.clampOverlaps = clampOverlaps;
+    }
+}
@@ -2,6 +2,7 @@ package io.github.cesarconte.subtitle_translator.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 import lombok.Data;
@@ -9,11 +10,13 @@ import lombok.Data;
 /**
  * Modelo para almacenar traducciones en MongoDB.
  * Utilizamos un índice compuesto para buscar traducciones rápidamente por hash,
- * sourceLanguage y targetLanguage.
+ * sourceLanguage y targetLanguage, y otro para recorrer el historial por
+ * lastAccessedAt.
  */
 @Data
 @Document(collection = "translations")
 @CompoundIndex(name = "idx_hash_source_target", def = "{'contentHash': 1, 'sourceLanguage': 1, 'targetLanguage': 1}", unique = true)
+@CompoundIndex(name = "idx_last_accessed_id", def = "{'lastAccessedAt': -1, '_id': -1}")
 public class Translation {
 
     @Id
@@ -25,18 +28,30 @@ public class Translation {
     // Nombre del archivo original
     private String fileName;
 
-    // Contenido original
+    // Contenido original. Solo en documentos antiguos: ahora se guarda en
+    // subtitle_contents con originalContentHash como clave
     private String originalContent;
 
+    // Hash MD5 del contenido original guardado en subtitle_contents. Puede
+    // diferir de contentHash, que es el hash del archivo tal como se subió.
+    // Indexado para saber al borrar si otra traducción usa el contenido
+    @Indexed
+    private String originalContentHash;
+
     // Idioma de origen
     private String sourceLanguage;
 
     // Idioma destino
     private String targetLanguage;
 
-    // Contenido traducido
+    // Contenido traducido. Solo en documentos antiguos: ahora se guarda en
+    // subtitle_contents con translatedContentHash como clave
     private String translatedContent;
 
+    // Hash MD5 del contenido traducido en subtitle_contents
+    @Indexed
+    private String translatedContentHash;
+
     // Datos de confianza de la traducción (formato JSON)
     private String confidenceData;
 
@@ -46,7 +61,9 @@ public class Translation {
     // Nivel de confianza (high, medium, low)
     private String confidenceLevel;
 
-    // Fecha de creación
+    // Fecha de creación. Indexada para que cada instancia lea las claves
+    // guardadas por las demás
+    @Indexed
     private LocalDateTime createdAt;
 
     // Fecha de último acceso
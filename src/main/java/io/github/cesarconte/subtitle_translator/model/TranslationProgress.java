@@ -11,6 +11,8 @@ public class TranslationProgress {
     private double progress;
     private long estimatedTotalTimeMs;
     private long remainingTimeMs;
+    // Billed characters saved by translating repeated lines only once
+    private int savedChars;
 
     // Default constructor needed for JSON serialization
     public TranslationProgress() {
@@ -119,4 +121,12 @@ public class TranslationProgress {
     public void setRemainingTimeMs(long remainingTimeMs) {
         this.remainingTimeMs = remainingTimeMs;
     }
+
+    public int getSavedChars() {
+        return savedChars;
+    }
+
+    public void setSavedChars(int savedChars) {
+        this.savedChars = savedChars;
+    }
 }
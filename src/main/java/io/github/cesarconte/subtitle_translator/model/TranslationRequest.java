@@ -1,18 +1,26 @@
 package io.github.cesarconte.subtitle_translator.model;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
 /**
  * DTO for subtitle translation request
  */
 public class TranslationRequest {
     private String srtContent;
+    private String documentId; // Handle of a document uploaded to /api/documents, instead of srtContent
     private String sourceLanguage;
     private String targetLanguage;
+    private List<String> targetLanguages; // Several target languages, translated in one job
     private String fileName;
     // Nuevos campos para las opciones avanzadas de DeepL
     private String formality = "default"; // default, more, less
     private boolean tagHandlingEnabled = true;
     private String glossaryId;
     private boolean preserveFormatting = true;
+    // Start the translation at /init instead of waiting for /subtitle
+    private boolean startTranslation;
 
     /**
      * Default constructor
@@ -50,6 +58,14 @@ public class TranslationRequest {
         this.srtContent = srtContent;
     }
 
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
     public String getSourceLanguage() {
         return sourceLanguage;
     }
@@ -66,6 +82,31 @@ public class TranslationRequest {
         this.targetLanguage = targetLanguage;
     }
 
+    public List<String> getTargetLanguages() {
+        return targetLanguages;
+    }
+
+    public void setTargetLanguages(List<String> targetLanguages) {
+        this.targetLanguages = targetLanguages;
+    }
+
+    /**
+     * Gets every requested target language: targetLanguages if given,
+     * otherwise targetLanguage. Duplicates are removed.
+     *
+     * @return Target language codes, empty if none was given
+     */
+    public List<String> targets() {
+        LinkedHashSet<String> targets = new LinkedHashSet<>();
+        if (targetLanguages != null && !targetLanguages.isEmpty()) {
+            targets.addAll(targetLanguages);
+        } else if (targetLanguage != null) {
+            targets.add(targetLanguage);
+        }
+        targets.remove(null);
+        return new ArrayList<>(targets);
+    }
+
     public String getFileName() {
         return fileName;
     }
@@ -105,4 +146,12 @@ public class TranslationRequest {
     public void setPreserveFormatting(boolean preserveFormatting) {
         this.preserveFormatting = preserveFormatting;
     }
+
+    public boolean isStartTranslation() {
+        return startTranslation;
+    }
+
+    public void setStartTranslation(boolean startTranslation) {
+        this.startTranslation = startTranslation;
+    }
 }
@@ -1,5 +1,7 @@
 package io.github.cesarconte.subtitle_translator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Collections;
 import java.util.List;
 
@@ -12,6 +14,14 @@ public class TranslationResponse {
     private String message;
     private double averageConfidence; // Average confidence of the translation
     private List<SubtitleConfidence> confidenceData; // Confidence data per subtitle
+    private String formatWarning; // Lines that exceed the recommended length, if any
+    private String targetLanguage;
+    @JsonIgnore
+    private String fileName; // Name of the uploaded file, used to name downloads
+    private List<TranslationResponse> translations; // One response per language, for several target languages
+    // Translated document, kept to stream downloads without building the content again
+    @JsonIgnore
+    private CompactSubtitleDocument translatedSubtitles;
 
     /**
      * Inner class to represent translation confidence per subtitle
@@ -102,6 +112,29 @@ public class TranslationResponse {
         this.translatedContent = "";
     }
 
+    /**
+     * Copies this response for another session of the same translation. The
+     * copy has its own file name; the content, confidence data and
+     * per-language responses are shared, not copied.
+     *
+     * @param fileName Name of the file uploaded by the other session
+     * @return A new response with the same translation
+     */
+    public TranslationResponse withFileName(String fileName) {
+        TranslationResponse copy = new TranslationResponse();
+        copy.translatedContent = translatedContent;
+        copy.success = success;
+        copy.message = message;
+        copy.averageConfidence = averageConfidence;
+        copy.confidenceData = confidenceData;
+        copy.formatWarning = formatWarning;
+        copy.targetLanguage = targetLanguage;
+        copy.fileName = fileName;
+        copy.translations = translations;
+        copy.translatedSubtitles = translatedSubtitles;
+        return copy;
+    }
+
     // Getters and Setters
     public String getTranslatedContent() {
         return translatedContent;
@@ -143,6 +176,65 @@ public class TranslationResponse {
         this.confidenceData = confidenceData;
     }
 
+    public String getFormatWarning() {
+        return formatWarning;
+    }
+
+    public void setFormatWarning(String formatWarning) {
+        this.formatWarning = formatWarning;
+    }
+
+    public String getTargetLanguage() {
+        return targetLanguage;
+    }
+
+    public void setTargetLanguage(String targetLanguage) {
+        this.targetLanguage = targetLanguage;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public List<TranslationResponse> getTranslations() {
+        return translations;
+    }
+
+    public void setTranslations(List<TranslationResponse> translations) {
+        this.translations = translations;
+    }
+
+    /**
+     * Gets the response for one target language
+     *
+     * @param targetLanguage Target language code
+     * @return The response of that language: this one for single-language
+     *         translations, or null if the language was not requested
+     */
+    public TranslationResponse forTargetLanguage(String targetLanguage) {
+        if (translations == null) {
+            return targetLanguage == null || targetLanguage.equalsIgnoreCase(this.targetLanguage) ? this : null;
+        }
+        for (TranslationResponse translation : translations) {
+            if (translation.getTargetLanguage().equalsIgnoreCase(targetLanguage)) {
+                return translation;
+            }
+        }
+        return null;
+    }
+
+    public CompactSubtitleDocument getTranslatedSubtitles() {
+        return translatedSubtitles;
+    }
+
+    public void setTranslatedSubtitles(CompactSubtitleDocument translatedSubtitles) {
+        this.translatedSubtitles = translatedSubtitles;
+    }
+
     /**
      * Gets the average confidence level as a category
      * 
@@ -0,0 +1,41 @@
+package io.github.cesarconte.subtitle_translator.model;
+
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * Resumen de una traducción para el listado del historial: solo los
+ * metadatos, sin los contenidos ni los datos de confianza por subtítulo.
+ */
+@Data
+public class TranslationSummary {
+
+    private String id;
+
+    // Nombre del archivo original
+    private String fileName;
+
+    // Idioma de origen
+    private String sourceLanguage;
+
+    // Idioma destino
+    private String targetLanguage;
+
+    // Tamaño del archivo original en bytes
+    private Long fileSize;
+
+    // Confianza promedio (0-1)
+    private Double averageConfidence;
+
+    // Nivel de confianza (high, medium, low)
+    private String confidenceLevel;
+
+    // Fecha de creación
+    private LocalDateTime createdAt;
+
+    // Fecha de último acceso
+    private LocalDateTime lastAccessedAt;
+
+    // Contador de accesos
+    private Integer accessCount;
+}
@@ -0,0 +1,12 @@
+package io.github.cesarconte.subtitle_translator.repository;
+
+import io.github.cesarconte.subtitle_translator.model.SegmentTranslation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para la memoria de traducción por segmento.
+ */
+@Repository
+public interface SegmentTranslationRepository extends MongoRepository<SegmentTranslation, String> {
+}
@@ -2,6 +2,7 @@ package io.github.cesarconte.subtitle_translator.repository;
 
 import io.github.cesarconte.subtitle_translator.model.Translation;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -18,8 +19,9 @@ public interface TranslationRepository extends MongoRepository<Translation, Stri
      * @param contentHash    Hash del contenido original
      * @param sourceLanguage Idioma de origen
      * @param targetLanguage Idioma destino
-     * @return La traducción encontrada (Optional)
+     * @return La traducción encontrada (Optional), sin el contenido original
      */
+    @Query(fields = "{ 'originalContent': 0 }")
     Optional<Translation> findByContentHashAndSourceLanguageAndTargetLanguage(
             String contentHash, String sourceLanguage, String targetLanguage);
 }
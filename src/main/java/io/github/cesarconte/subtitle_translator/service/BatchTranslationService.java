@@ -0,0 +1,363 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.model.BatchFileStatus;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.TranslationRequest;
+import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
+import io.github.cesarconte.subtitle_translator.util.SrtWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Translates ZIP archives of SRT files.
+ *
+ * Every file becomes a regular translation job into all the target languages,
+ * with its own progress tracking session, so the files share the job queue,
+ * the stored translations and the DeepL rate limits with single-file
+ * translations. Results are written to the output archive in the order the
+ * files finish.
+ */
+@Service
+public class BatchTranslationService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchTranslationService.class);
+
+    private final TranslationJobService translationJobService;
+    private final ProgressTrackingService progressTrackingService;
+    private final SubtitleDocumentService subtitleDocumentService;
+    private final AppProperties.Batch settings;
+
+    // Files of each batch, for progress queries
+    private final Cache<String, List<BatchFile>> batches;
+
+    public BatchTranslationService(TranslationJobService translationJobService,
+            ProgressTrackingService progressTrackingService, SubtitleDocumentService subtitleDocumentService,
+            AppProperties appProperties) {
+        this.translationJobService = translationJobService;
+        this.progressTrackingService = progressTrackingService;
+        this.subtitleDocumentService = subtitleDocumentService;
+        this.settings = appProperties.getBatch();
+        this.batches = CacheBuilder.newBuilder()
+                .expireAfterWrite(appProperties.getJobs().getResultTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Reads the SRT files of an archive and creates a progress tracking
+     * session for each file. Other entries are ignored.
+     *
+     * @param archive         ZIP archive
+     * @param targetLanguages Target language codes
+     * @return The batch, ready to run
+     * @throws IOException              if the archive cannot be read
+     * @throws IllegalArgumentException if the archive has no SRT files or
+     *                                  too many
+     */
+    public Batch prepare(InputStream archive, List<String> targetLanguages) throws IOException {
+        List<BatchFile> files = new ArrayList<>();
+        Set<String> outputNames = new HashSet<>();
+
+        ZipInputStream zip = new ZipInputStream(archive, StandardCharsets.UTF_8);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (entry.isDirectory() || !entry.getName().toLowerCase(Locale.ROOT).endsWith(".srt")) {
+                continue;
+            }
+            if (files.size() == settings.getMaxFiles()) {
+                throw new IllegalArgumentException("The archive has more than " + settings.getMaxFiles() + " SRT files");
+            }
+            // Parsed while decompressed; the entry is never held as text
+            ParsedSubtitleDocument document = subtitleDocumentService.parse(zip);
+            String sessionId = progressTrackingService.startTracking(document.getTotalChars());
+            if (!document.isValid()) {
+                progressTrackingService.completeTracking(sessionId, false, "Invalid SRT format");
+            }
+            files.add(new BatchFile(entry.getName(), outputName(entry.getName(), outputNames), sessionId,
+                    document));
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("The archive has no SRT files");
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        batches.put(batchId, files);
+        logger.info("Batch {} prepared: {} files, {} target languages", batchId, files.size(),
+                targetLanguages.size());
+        return new Batch(batchId, files, List.copyOf(targetLanguages));
+    }
+
+    /**
+     * Translates the files of a batch and writes the results as a ZIP
+     * archive. Each translated file is named after the original with the
+     * target language before the extension ("episode01.es.srt"); files that
+     * fail produce a text entry with the error instead.
+     *
+     * Files wait for room in the job queue when it is full. If a file finds
+     * no room within the configured time while nothing else of the batch is
+     * running, the remaining files fail.
+     *
+     * @param batch   Batch to run
+     * @param options Source language and translation options shared by all
+     *                files
+     * @param output  Destination of the archive; not closed
+     * @throws IOException if the destination fails
+     */
+    public void run(Batch batch, TranslationRequest options, OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(output, StandardCharsets.UTF_8);
+        Deque<BatchFile> waiting = new ArrayDeque<>();
+        BlockingQueue<BatchFile> finished = new LinkedBlockingQueue<>();
+        int running = 0;
+
+        for (BatchFile file : batch.files) {
+            if (file.document.isValid()) {
+                waiting.add(file);
+            } else {
+                writeErrors(zip, batch, file, "The file does not have a valid SRT format");
+                file.document = null;
+            }
+        }
+
+        try {
+            while (!waiting.isEmpty() || running > 0) {
+                // Keep a bounded number of this batch's files in the job queue
+                while (running < Math.max(1, settings.getMaxConcurrentFiles()) && !waiting.isEmpty()) {
+                    BatchFile file = waiting.poll();
+                    // With files of the batch running, their results are written while
+                    // waiting; otherwise wait here for a slot, up to the timeout
+                    long timeout = running > 0 ? 0 : settings.getQueueTimeoutSeconds();
+                    try {
+                        translationJobService.submit(file.sessionId, request(options, batch, file),
+                                file.document, timeout, TimeUnit.SECONDS)
+                                .thenAccept(response -> {
+                                    file.response = response;
+                                    finished.add(file);
+                                });
+                        running++;
+                    } catch (RejectedExecutionException e) {
+                        if (running > 0) {
+                            // The job queue is shared with other batches and uploads: the
+                            // file waits for a free slot instead of failing
+                            waiting.addFirst(file);
+                            progressTrackingService.setTotalChars(file.sessionId, file.document.getTotalChars());
+                            progressTrackingService.updateProgress(file.sessionId, "starting",
+                                    "Waiting for a free translation slot...", 0);
+                            break;
+                        }
+                        logger.warn("Batch {}: no room in the job queue after {} s, failing {} files", batch.id,
+                                settings.getQueueTimeoutSeconds(), waiting.size() + 1);
+                        failWaiting(zip, batch, file, waiting);
+                    }
+                }
+
+                if (running == 0) {
+                    continue;
+                }
+
+                BatchFile file = finished.take();
+                running--;
+                if (file.response.isSuccess()) {
+                    writeTranslations(zip, batch, file);
+                } else {
+                    writeErrors(zip, batch, file, file.response.getMessage());
+                }
+                // The archive entries hold the result now; drop every copy kept in memory
+                translationJobService.evictResult(file.sessionId);
+                file.document = null;
+                file.response = null;
+                // Send each result as soon as it is ready
+                zip.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch " + batch.id + " interrupted");
+        }
+
+        zip.finish();
+        logger.info("Batch {} finished", batch.id);
+    }
+
+    /**
+     * Fails a file that found no room in the job queue, and every file still
+     * waiting after it
+     */
+    private void failWaiting(ZipOutputStream zip, Batch batch, BatchFile file, Deque<BatchFile> waiting)
+            throws IOException {
+        String message = "Too many translations in progress";
+        writeErrors(zip, batch, file, message);
+        file.document = null;
+        while (!waiting.isEmpty()) {
+            BatchFile next = waiting.poll();
+            progressTrackingService.completeTracking(next.sessionId, false, message);
+            writeErrors(zip, batch, next, message);
+            next.document = null;
+        }
+        zip.flush();
+    }
+
+    /**
+     * Gets the progress of the files of a batch
+     *
+     * @param batchId Batch ID
+     * @return State of each file, or empty if the batch is unknown or expired
+     */
+    public Optional<List<BatchFileStatus>> getStatus(String batchId) {
+        List<BatchFile> files = batches.getIfPresent(batchId);
+        if (files == null) {
+            return Optional.empty();
+        }
+        List<BatchFileStatus> status = new ArrayList<>(files.size());
+        for (BatchFile file : files) {
+            status.add(new BatchFileStatus(file.fileName, file.sessionId,
+                    progressTrackingService.getProgress(file.sessionId)));
+        }
+        return Optional.of(status);
+    }
+
+    private static TranslationRequest request(TranslationRequest options, Batch batch, BatchFile file) {
+        TranslationRequest request = new TranslationRequest(null, options.getSourceLanguage(), null,
+                file.outputName + ".srt");
+        request.setTargetLanguages(batch.targetLanguages);
+        request.setFormality(options.getFormality());
+        request.setTagHandlingEnabled(options.isTagHandlingEnabled());
+        request.setGlossaryId(options.getGlossaryId());
+        request.setPreserveFormatting(options.isPreserveFormatting());
+        return request;
+    }
+
+    /**
+     * Writes one entry per target language from the response of a file
+     */
+    private static void writeTranslations(ZipOutputStream zip, Batch batch, BatchFile file) throws IOException {
+        for (String targetLanguage : batch.targetLanguages) {
+            TranslationResponse translation = file.response.forTargetLanguage(targetLanguage);
+            if (translation == null) {
+                writeError(zip, file, targetLanguage, "No translation for " + targetLanguage);
+                continue;
+            }
+            zip.putNextEntry(new ZipEntry(entryName(file, targetLanguage, ".srt")));
+            Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+            if (translation.getTranslatedSubtitles() != null) {
+                new SrtWriter(writer).writeAll(translation.getTranslatedSubtitles());
+            } else {
+                // Translations loaded from the database only have the content
+                writer.write(translation.getTranslatedContent());
+            }
+            writer.flush();
+            zip.closeEntry();
+        }
+    }
+
+    private static void writeErrors(ZipOutputStream zip, Batch batch, BatchFile file, String message)
+            throws IOException {
+        for (String targetLanguage : batch.targetLanguages) {
+            writeError(zip, file, targetLanguage, message);
+        }
+    }
+
+    private static void writeError(ZipOutputStream zip, BatchFile file, String targetLanguage, String message)
+            throws IOException {
+        zip.putNextEntry(new ZipEntry(entryName(file, targetLanguage, ".error.txt")));
+        zip.write(message.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String entryName(BatchFile file, String targetLanguage, String suffix) {
+        return file.outputName + "." + targetLanguage.toLowerCase(Locale.ROOT) + suffix;
+    }
+
+    /**
+     * Builds a safe relative name, without the extension, for the output
+     * entries of an archive entry: "..", "." and empty segments, leading
+     * slashes and drive prefixes are dropped, so the output archive cannot
+     * write outside the folder it is extracted to. Names that collide with an
+     * earlier file get a numeric suffix.
+     *
+     * @param entryName Name of the entry in the uploaded archive
+     * @param used      Output names already taken in the batch, lower case
+     * @return Output name, unique in the batch
+     */
+    static String outputName(String entryName, Set<String> used) {
+        String name = entryName.substring(0, entryName.length() - ".srt".length());
+        List<String> segments = new ArrayList<>();
+        for (String segment : name.replace('\\', '/').split("/")) {
+            // Drive prefixes such as "C:" only make sense at the start of an absolute path
+            segment = segment.replaceFirst("^[A-Za-z]:", "");
+            if (!segment.isEmpty() && !segment.equals(".") && !segment.equals("..")) {
+                segments.add(segment);
+            }
+        }
+        String base = segments.isEmpty() ? "subtitle" : String.join("/", segments);
+
+        String unique = base;
+        for (int i = 2; !used.add(unique.toLowerCase(Locale.ROOT)); i++) {
+            unique = base + "-" + i;
+        }
+        return unique;
+    }
+
+    /**
+     * Files of an archive, prepared for translation
+     */
+    public static class Batch {
+        private final String id;
+        private final List<BatchFile> files;
+        private final List<String> targetLanguages;
+
+        private Batch(String id, List<BatchFile> files, List<String> targetLanguages) {
+            this.id = id;
+            this.files = files;
+            this.targetLanguages = targetLanguages;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    /**
+     * One file of a batch, translated to every target language in one job
+     */
+    private static class BatchFile {
+        private final String fileName;
+        // Safe name of the output entries, without extension
+        private final String outputName;
+        private final String sessionId;
+        // Released once the result is written
+        private ParsedSubtitleDocument document;
+        private volatile TranslationResponse response;
+
+        BatchFile(String fileName, String outputName, String sessionId, ParsedSubtitleDocument document) {
+            this.fileName = fileName;
+            this.outputName = outputName;
+            this.sessionId = sessionId;
+            this.document = document;
+        }
+    }
+}
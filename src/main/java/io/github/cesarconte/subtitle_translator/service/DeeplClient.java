@@ -0,0 +1,177 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking client for the DeepL API built on WebClient.
+ *
+ * Connections are pooled and kept alive, and every call goes through the
+ * shared {@link DeeplRateLimiter}. Calls return {@link Mono}s, so many groups
+ * and jobs can be in flight without a blocked thread per request.
+ */
+@Component
+public class DeeplClient {
+    private static final Logger logger = LoggerFactory.getLogger(DeeplClient.class);
+
+    private static final String DEFAULT_API_URL = "https://api-free.deepl.com/v2";
+    private static final int MAX_RESPONSE_BYTES = 4 * 1024 * 1024;
+
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final DeeplRateLimiter rateLimiter;
+    private final GroupSizingPolicy groupSizingPolicy;
+
+    public DeeplClient(DeeplProperties deeplProperties, DeeplRateLimiter rateLimiter,
+            GroupSizingPolicy groupSizingPolicy) {
+        this.rateLimiter = rateLimiter;
+        this.groupSizingPolicy = groupSizingPolicy;
+
+        DeeplProperties.Http http = deeplProperties.getHttp();
+        this.connectionProvider = ConnectionProvider.builder("deepl")
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(http.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(http.getMaxIdleTimeMs()))
+                .evictInBackground(Duration.ofMillis(http.getMaxIdleTimeMs()))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, http.getConnectTimeoutMs())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofMillis(http.getResponseTimeoutMs()));
+
+        String apiUrl = deeplProperties.getApi().getUrl();
+        this.webClient = WebClient.builder()
+                .baseUrl(apiUrl != null && !apiUrl.isEmpty() ? apiUrl : DEFAULT_API_URL)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "DeepL-Auth-Key " + deeplProperties.getApi().getKey())
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
+                .build();
+    }
+
+    /**
+     * Sends a single /translate request containing several texts
+     *
+     * @param texts      Texts to translate
+     * @param targetLang Target language code
+     * @param sourceLang Source language code (null for automatic detection)
+     * @param options    Translation options
+     * @return Translated texts, in the same order as the input
+     */
+    public Mono<List<String>> translate(List<String> texts, String targetLang, String sourceLang,
+            TranslationOptions options) {
+        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
+        int totalChars = 0;
+        for (String text : texts) {
+            formData.add("text", text);
+            totalChars += text.length();
+        }
+        formData.add("target_lang", targetLang);
+
+        // Añadir parámetros opcionales si están disponibles
+        if (sourceLang != null && !sourceLang.equals("auto")) {
+            formData.add("source_lang", sourceLang);
+        }
+
+        // Opciones avanzadas de traducción
+        if (options.getFormality() != null && !options.getFormality().equals("default")) {
+            formData.add("formality", options.getFormality());
+        }
+
+        if (options.isTagHandlingEnabled()) {
+            formData.add("tag_handling", "xml");
+        }
+
+        if (options.getGlossaryId() != null && !options.getGlossaryId().isEmpty()) {
+            formData.add("glossary_id", options.getGlossaryId());
+        }
+
+        // Preservar formato
+        if (options.isPreserveFormatting()) {
+            formData.add("preserve_formatting", "1");
+        }
+
+        // Control de división de oraciones
+        formData.add("split_sentences", options.isSplitSentences() ? "1" : "0");
+
+        logger.debug("Enviando {} textos a DeepL con opciones avanzadas: {}", texts.size(), options);
+
+        int requestChars = totalChars;
+        return rateLimiter.limit(requestChars, () -> {
+            long startTime = System.nanoTime();
+            return webClient.post()
+                    .uri("/translate")
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body(BodyInserters.fromFormData(formData))
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
+                    })
+                    // Feed the measured latency back into the request sizing
+                    .doOnSuccess(body -> groupSizingPolicy.recordLatency(requestChars,
+                            System.nanoTime() - startTime));
+        }).switchIfEmpty(Mono.error(new RuntimeException("Empty response from DeepL server")))
+                .map(responseBody -> extractTranslations(responseBody, texts.size()));
+    }
+
+    /**
+     * Fetches the glossaries of the configured account
+     *
+     * @return Glossaries (each as a Map with id, name, source_lang, target_lang)
+     */
+    public Mono<List<Map<String, Object>>> listGlossaries() {
+        return rateLimiter.limit(0, () -> webClient.get()
+                .uri("/glossaries")
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
+                }))
+                .map(responseBody -> {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> glossaries = (List<Map<String, Object>>) responseBody
+                            .getOrDefault("glossaries", List.of());
+                    return glossaries;
+                });
+    }
+
+    private List<String> extractTranslations(Map<String, Object> responseBody, int expected) {
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> translations = (List<Map<String, Object>>) responseBody.get("translations");
+
+        if (translations == null || translations.size() != expected) {
+            throw new RuntimeException("Expected " + expected + " translations but received "
+                    + (translations == null ? 0 : translations.size()));
+        }
+
+        List<String> translatedTexts = new ArrayList<>(translations.size());
+        for (Map<String, Object> translation : translations) {
+            translatedTexts.add((String) translation.get("text"));
+        }
+        return translatedTexts;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connectionProvider.dispose();
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide adaptive rate limiter for outbound DeepL calls.
+ *
+ * It paces both requests per second and characters per second. A 429
+ * response (or a Retry-After header) cuts the permitted rate
+ * multiplicatively and blocks new calls until the retry time; every
+ * successful call raises the rate again by a small additive step.
+ */
+@Component
+public class DeeplRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(DeeplRateLimiter.class);
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(1);
+
+    private final DeeplProperties.RateLimit settings;
+
+    // Fraction of the configured maximum rates currently permitted
+    private double rateFraction;
+
+    // Earliest time (System.nanoTime) at which the next request/character
+    // permit is available
+    private long nextRequestSlot;
+    private long nextCharSlot;
+    private long blockedUntil;
+
+    public DeeplRateLimiter(DeeplProperties deeplProperties, MeterRegistry meterRegistry) {
+        this.settings = deeplProperties.getRateLimit();
+        this.rateFraction = clampFraction(settings.getInitialRateFraction());
+        long now = System.nanoTime();
+        this.nextRequestSlot = now;
+        this.nextCharSlot = now;
+        this.blockedUntil = now;
+
+        Gauge.builder("deepl.ratelimit.requests.per.second", this, DeeplRateLimiter::getRequestsPerSecond)
+                .description("Requests per second currently permitted towards DeepL")
+                .register(meterRegistry);
+        Gauge.builder("deepl.ratelimit.characters.per.second", this, DeeplRateLimiter::getCharactersPerSecond)
+                .description("Characters per second currently permitted towards DeepL")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wraps a DeepL call so it is only subscribed once permits are available,
+     * retrying with backoff when DeepL answers 429 Too Many Requests. Waiting
+     * is done with a timer, so no thread is blocked.
+     *
+     * @param chars Number of characters sent in the call
+     * @param call  Supplier of the outbound call
+     * @return The rate-limited call
+     */
+    public <T> Mono<T> limit(int chars, Supplier<Mono<T>> call) {
+        AtomicInteger attempts = new AtomicInteger();
+        return Mono.defer(() -> Mono.delay(Duration.ofNanos(reserve(chars))).then(Mono.defer(call)))
+                .doOnSuccess(result -> onSuccess())
+                .doOnError(WebClientResponseException.TooManyRequests.class, e -> {
+                    Duration retryAfter = parseRetryAfter(e.getHeaders(), attempts.get());
+                    onThrottled(retryAfter);
+                    if (attempts.incrementAndGet() <= settings.getMaxRetries()) {
+                        logger.warn("DeepL rate limit reached, retrying in {} ms (attempt {} of {})",
+                                retryAfter.toMillis(), attempts.get(), settings.getMaxRetries());
+                    }
+                })
+                .retryWhen(Retry.max(settings.getMaxRetries())
+                        .filter(WebClientResponseException.TooManyRequests.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Reserves the permits for one call without blocking
+     *
+     * @param chars Number of characters to send
+     * @return Nanoseconds the caller must wait before sending the call
+     */
+    public synchronized long reserve(int chars) {
+        long now = System.nanoTime();
+        long start = Math.max(now, Math.max(blockedUntil, Math.max(nextRequestSlot, nextCharSlot)));
+
+        nextRequestSlot = start + (long) (NANOS_PER_SECOND / getRequestsPerSecond());
+        nextCharSlot = start + (long) (NANOS_PER_SECOND * (double) Math.max(0, chars) / getCharactersPerSecond());
+
+        return start - now;
+    }
+
+    /**
+     * Probes the permitted rate back up after a successful call
+     */
+    public synchronized void onSuccess() {
+        rateFraction = clampFraction(rateFraction + settings.getIncreaseStep());
+    }
+
+    /**
+     * Backs off after DeepL rejected a call for exceeding its rate limit
+     *
+     * @param retryAfter Time DeepL asked to wait before the next call
+     */
+    public synchronized void onThrottled(Duration retryAfter) {
+        rateFraction = clampFraction(rateFraction * settings.getDecreaseFactor());
+        blockedUntil = Math.max(blockedUntil, System.nanoTime() + retryAfter.toNanos());
+        logger.debug("DeepL rate limiter backed off to {} requests/s", String.format("%.2f", getRequestsPerSecond()));
+    }
+
+    public synchronized double getRequestsPerSecond() {
+        return settings.getMaxRequestsPerSecond() * rateFraction;
+    }
+
+    public synchronized double getCharactersPerSecond() {
+        return settings.getMaxCharactersPerSecond() * rateFraction;
+    }
+
+    private double clampFraction(double fraction) {
+        return Math.max(settings.getMinRateFraction(), Math.min(1.0, fraction));
+    }
+
+    /**
+     * Reads the Retry-After header (seconds or HTTP date), falling back to an
+     * exponential backoff when it is missing
+     */
+    private Duration parseRetryAfter(HttpHeaders headers, int attempt) {
+        Duration fallback = DEFAULT_BACKOFF.multipliedBy(1L << Math.min(attempt, 5));
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration untilRetry = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+                return untilRetry.isNegative() ? Duration.ZERO : untilRetry;
+            } catch (Exception ignored) {
+                return fallback;
+            }
+        }
+    }
+}
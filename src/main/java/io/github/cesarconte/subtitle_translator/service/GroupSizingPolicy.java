@@ -0,0 +1,132 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Decides how many subtitles go into each DeepL request.
+ *
+ * Groups are filled up to a character budget and a form-encoded byte cap,
+ * with the subtitle count only as an upper bound. The character budget
+ * adapts to the measured DeepL latency per character so each request takes
+ * roughly the configured target latency.
+ */
+@Component
+public class GroupSizingPolicy {
+    private static final Logger logger = LoggerFactory.getLogger(GroupSizingPolicy.class);
+
+    // Weight of the newest measurement in the moving average
+    private static final double LATENCY_SMOOTHING = 0.2;
+    // Requests below this size are dominated by fixed overhead, not per-char cost
+    private static final int MIN_MEASURED_CHARS = 200;
+
+    private final DeeplProperties.Batching settings;
+
+    // Exponentially weighted average of milliseconds per character (0 = unknown)
+    private double msPerChar;
+
+    public GroupSizingPolicy(DeeplProperties deeplProperties) {
+        this.settings = deeplProperties.getBatching();
+    }
+
+    /**
+     * Splits the items into groups that fit the current request budget
+     *
+     * @param items        Items to group, in order
+     * @param textFunction Function returning the text sent for an item
+     * @return Groups of consecutive items
+     */
+    public <T> List<List<T>> group(List<T> items, Function<T, String> textFunction) {
+        int charBudget = getCharBudget();
+        int maxBytes = settings.getMaxBytesPerRequest();
+        int maxItems = Math.max(1, settings.getMaxSubtitlesPerRequest());
+
+        List<List<T>> groups = new ArrayList<>();
+        int groupStart = 0;
+        int groupChars = 0;
+        int groupBytes = 0;
+        for (int i = 0; i < items.size(); i++) {
+            String text = textFunction.apply(items.get(i));
+            int itemChars = text.length();
+            int itemBytes = estimateFormBytes(text);
+            boolean groupFull = i - groupStart >= maxItems
+                    || groupChars + itemChars > charBudget
+                    || groupBytes + itemBytes > maxBytes;
+            if (groupFull && i > groupStart) {
+                groups.add(items.subList(groupStart, i));
+                groupStart = i;
+                groupChars = 0;
+                groupBytes = 0;
+            }
+            groupChars += itemChars;
+            groupBytes += itemBytes;
+        }
+        if (groupStart < items.size()) {
+            groups.add(items.subList(groupStart, items.size()));
+        }
+
+        logger.debug("Grouped {} subtitles into {} requests (budget {} chars)", items.size(), groups.size(),
+                charBudget);
+        return groups;
+    }
+
+    /**
+     * Records the latency of a completed DeepL request
+     *
+     * @param chars        Characters sent in the request
+     * @param elapsedNanos Time the request took
+     */
+    public synchronized void recordLatency(int chars, long elapsedNanos) {
+        if (chars < MIN_MEASURED_CHARS) {
+            return;
+        }
+        double measured = (elapsedNanos / 1_000_000.0) / chars;
+        msPerChar = msPerChar == 0 ? measured : msPerChar * (1 - LATENCY_SMOOTHING) + measured * LATENCY_SMOOTHING;
+    }
+
+    /**
+     * Current character budget per request
+     *
+     * @return Characters that fit in one request at the target latency
+     */
+    public synchronized int getCharBudget() {
+        if (msPerChar <= 0) {
+            return settings.getTargetCharsPerRequest();
+        }
+        long budget = Math.round(settings.getTargetLatencyMs() / msPerChar);
+        return (int) Math.max(settings.getMinCharsPerRequest(), Math.min(settings.getMaxCharsPerRequest(), budget));
+    }
+
+    /**
+     * Estimates the size of a text once form-url-encoded as a "text"
+     * parameter
+     *
+     * @param text Text to send
+     * @return Estimated encoded size in bytes
+     */
+    public static int estimateFormBytes(String text) {
+        // "text=" plus the "&" separator
+        int bytes = 6;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == ' ' || c == '.' || c == '-' || c == '_' || c == '*') {
+                bytes += 1;
+            } else if (c < 0x80) {
+                bytes += 3;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                // Each surrogate half accounts for half of a four byte sequence
+                bytes += 6;
+            } else {
+                bytes += 9;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.model.TranslationProgress;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Pushes translation progress to clients as Server-Sent Events.
+ *
+ * Each stream listens to {@link ProgressTrackingService} and coalesces the
+ * changes: at most one event is sent per configured interval, always with
+ * the latest snapshot. The stream is closed once the translation completes
+ * or fails.
+ */
+@Service
+public class ProgressStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(ProgressStreamService.class);
+
+    private final ProgressTrackingService progressTrackingService;
+    private final long minIntervalMs;
+    private final long timeoutMs;
+    private final ScheduledExecutorService scheduler;
+
+    public ProgressStreamService(ProgressTrackingService progressTrackingService, AppProperties appProperties) {
+        this.progressTrackingService = progressTrackingService;
+        this.minIntervalMs = Math.max(0, appProperties.getProgressStream().getMinIntervalMs());
+        this.timeoutMs = appProperties.getProgressStream().getTimeoutMs();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a progress stream for a session
+     *
+     * @param sessionId Translation session ID
+     * @return The emitter, or null if the session is unknown
+     */
+    public SseEmitter subscribe(String sessionId) {
+        TranslationProgress current = progressTrackingService.getProgress(sessionId);
+        if (current == null) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        ProgressSubscription subscription = new ProgressSubscription(sessionId, emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+
+        progressTrackingService.addProgressListener(sessionId, subscription);
+        // Send the current state right away; it may already be final
+        subscription.accept(progressTrackingService.getProgress(sessionId));
+        return emitter;
+    }
+
+    private static boolean isFinal(TranslationProgress progress) {
+        return "completed".equals(progress.getPhase()) || "error".equals(progress.getPhase());
+    }
+
+    /**
+     * One open stream: keeps the latest unsent snapshot and schedules a push
+     * when none is pending
+     */
+    private class ProgressSubscription implements Consumer<TranslationProgress> {
+        private final String sessionId;
+        private final SseEmitter emitter;
+        private final AtomicReference<TranslationProgress> latest = new AtomicReference<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastSentAt;
+
+        ProgressSubscription(String sessionId, SseEmitter emitter) {
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void accept(TranslationProgress progress) {
+            if (progress == null || closed.get()) {
+                return;
+            }
+            latest.set(progress);
+            if (flushScheduled.compareAndSet(false, true)) {
+                long delay = isFinal(progress) ? 0
+                        : Math.max(0, lastSentAt + minIntervalMs - System.currentTimeMillis());
+                scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            flushScheduled.set(false);
+            TranslationProgress progress = latest.getAndSet(null);
+            if (progress == null || closed.get()) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name("progress").data(progress, MediaType.APPLICATION_JSON));
+                lastSentAt = System.currentTimeMillis();
+                if (isFinal(progress)) {
+                    close();
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                logger.debug("Progress stream for session {} closed by client", sessionId);
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                progressTrackingService.removeProgressListener(sessionId, this);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,8 +1,11 @@
 package io.github.cesarconte.subtitle_translator.service;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import io.github.cesarconte.subtitle_translator.model.TranslationProgress;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,15 @@ public class ProgressTrackingService {
     private final Map<String, Long> startTimeMap = new ConcurrentHashMap<>();
     private final Map<String, Double> translationRateMap = new ConcurrentHashMap<>();
 
+    // Characters saved by deduplication, carried over every progress update
+    private final Map<String, Integer> savedCharsMap = new ConcurrentHashMap<>();
+
+    // Sessions that follow the progress of another session's job
+    private final Map<String, String> aliasMap = new ConcurrentHashMap<>();
+
+    // Listeners notified of every progress change, by session ID
+    private final Map<String, List<Consumer<TranslationProgress>>> listenersMap = new ConcurrentHashMap<>();
+
     /**
      * Starts tracking a new translation session
      * 
@@ -67,7 +79,21 @@ public class ProgressTrackingService {
                 totalChars, // new total characters
                 currentProgress.getTranslatedChars(),
                 newProgressPercentage);
-        progressMap.put(sessionId, updatedProgress);
+        storeProgress(sessionId, updatedProgress);
+    }
+
+    /**
+     * Records the billed characters saved by deduplicating repeated lines
+     *
+     * @param sessionId  Translation session ID
+     * @param savedChars Number of characters that did not need translating
+     */
+    public void setSavedChars(String sessionId, int savedChars) {
+        savedCharsMap.put(sessionId, savedChars);
+        TranslationProgress currentProgress = progressMap.get(sessionId);
+        if (currentProgress != null) {
+            storeProgress(sessionId, currentProgress);
+        }
     }
 
     /**
@@ -116,13 +142,13 @@ public class ProgressTrackingService {
                     phase, message, totalChars, translatedChars,
                     progressPercentage, estimatedTotalTimeMs, remainingTimeMs);
 
-            progressMap.put(sessionId, updatedProgress);
+            storeProgress(sessionId, updatedProgress);
         } else {
             // Create new progress without time estimates
             TranslationProgress updatedProgress = new TranslationProgress(
                     phase, message, totalChars, translatedChars, progressPercentage);
 
-            progressMap.put(sessionId, updatedProgress);
+            storeProgress(sessionId, updatedProgress);
         }
     }
 
@@ -141,10 +167,11 @@ public class ProgressTrackingService {
 
         if (success) {
             TranslationProgress completedProgress = TranslationProgress.completed(currentProgress.getTotalChars());
-            progressMap.put(sessionId, completedProgress);
+            storeProgress(sessionId, completedProgress);
         } else {
             TranslationProgress errorProgress = TranslationProgress.error(message);
             progressMap.put(sessionId, errorProgress);
+            notifyListeners(sessionId, errorProgress);
         }
     }
 
@@ -155,7 +182,33 @@ public class ProgressTrackingService {
      * @return Current progress or null if not found
      */
     public TranslationProgress getProgress(String sessionId) {
-        return progressMap.get(sessionId);
+        return progressMap.get(resolve(sessionId));
+    }
+
+    /**
+     * Makes a session report the progress of another one. Used when a job is
+     * attached to an identical translation that is already running.
+     *
+     * @param sessionId       Session ID that follows
+     * @param leaderSessionId Session ID whose progress is reported
+     */
+    public synchronized void followSession(String sessionId, String leaderSessionId) {
+        String leader = resolve(leaderSessionId);
+        if (leader.equals(sessionId)) {
+            return;
+        }
+        aliasMap.put(sessionId, leader);
+
+        // Listeners subscribed to the follower before it was attached move to
+        // the leader, and catch up with its current progress
+        List<Consumer<TranslationProgress>> listeners = listenersMap.remove(sessionId);
+        if (listeners != null) {
+            listenersMap.computeIfAbsent(leader, id -> new CopyOnWriteArrayList<>()).addAll(listeners);
+            TranslationProgress progress = progressMap.get(leader);
+            if (progress != null) {
+                listeners.forEach(listener -> listener.accept(progress));
+            }
+        }
     }
 
     /**
@@ -167,5 +220,54 @@ public class ProgressTrackingService {
         progressMap.remove(sessionId);
         startTimeMap.remove(sessionId);
         translationRateMap.remove(sessionId);
+        savedCharsMap.remove(sessionId);
+        listenersMap.remove(sessionId);
+        aliasMap.remove(sessionId);
+    }
+
+    /**
+     * Registers a listener for the progress changes of a session
+     *
+     * @param sessionId Translation session ID
+     * @param listener  Listener called with every new progress snapshot
+     */
+    public synchronized void addProgressListener(String sessionId, Consumer<TranslationProgress> listener) {
+        listenersMap.computeIfAbsent(resolve(sessionId), id -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Unregisters a progress listener
+     *
+     * @param sessionId Translation session ID
+     * @param listener  Listener previously registered
+     */
+    public synchronized void removeProgressListener(String sessionId, Consumer<TranslationProgress> listener) {
+        listenersMap.computeIfPresent(resolve(sessionId), (id, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Stores a progress snapshot, keeping the per-session deduplication
+     * savings
+     */
+    private void storeProgress(String sessionId, TranslationProgress progress) {
+        progress.setSavedChars(savedCharsMap.getOrDefault(sessionId, 0));
+        progressMap.put(sessionId, progress);
+        notifyListeners(sessionId, progress);
+    }
+
+    private String resolve(String sessionId) {
+        return aliasMap.getOrDefault(sessionId, sessionId);
+    }
+
+    private void notifyListeners(String sessionId, TranslationProgress progress) {
+        List<Consumer<TranslationProgress>> listeners = listenersMap.get(sessionId);
+        if (listeners != null) {
+            for (Consumer<TranslationProgress> listener : listeners) {
+                listener.accept(progress);
+            }
+        }
     }
 }
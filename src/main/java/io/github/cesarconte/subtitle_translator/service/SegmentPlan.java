@@ -0,0 +1,87 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distinct segments of a list of texts, computed once and shared by every
+ * target language the texts are translated into
+ */
+public final class SegmentPlan {
+    private final int size;
+    private final List<String> distinctTexts = new ArrayList<>();
+    // Distinct segment used at each position of the input
+    private final int[] distinctIndexes;
+    // Positions that use each distinct segment
+    private final int[] occurrences;
+    private final int savedChars;
+
+    private SegmentPlan(List<String> texts) {
+        this.size = texts.size();
+        this.distinctIndexes = new int[size];
+        this.occurrences = new int[size];
+
+        Map<String, Integer> distinctIndexByText = new HashMap<>();
+        int saved = 0;
+        for (int i = 0; i < size; i++) {
+            String text = texts.get(i);
+            Integer distinctIndex = distinctIndexByText.get(text);
+            if (distinctIndex == null) {
+                distinctIndex = distinctTexts.size();
+                distinctIndexByText.put(text, distinctIndex);
+                distinctTexts.add(text);
+            } else {
+                saved += text.length();
+            }
+            distinctIndexes[i] = distinctIndex;
+            occurrences[distinctIndex]++;
+        }
+        this.savedChars = saved;
+    }
+
+    /**
+     * Deduplicates texts: each distinct text is translated once
+     *
+     * @param texts Texts to translate
+     * @return The plan
+     */
+    public static SegmentPlan of(List<String> texts) {
+        return new SegmentPlan(texts);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<String> getDistinctTexts() {
+        return distinctTexts;
+    }
+
+    public int getOccurrences(int distinctIndex) {
+        return occurrences[distinctIndex];
+    }
+
+    /**
+     * Characters not sent because their text repeats an earlier one
+     */
+    public int getSavedChars() {
+        return savedChars;
+    }
+
+    /**
+     * Fans the translations of the distinct segments back out to every
+     * position
+     *
+     * @param distinctTranslations Translation of each distinct segment
+     * @return Translated texts, in the same order as the input
+     */
+    public List<String> fanOut(String[] distinctTranslations) {
+        List<String> translatedTexts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            translatedTexts.add(distinctTranslations[distinctIndexes[i]]);
+        }
+        return translatedTexts;
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+/**
+ * Receives progress notifications while a list of segments is translated
+ */
+public interface SegmentProgressListener {
+
+    /**
+     * Called as segments complete, either from the cache or from DeepL
+     *
+     * @param chars Number of source characters completed
+     */
+    void onCharsTranslated(int chars);
+
+    /**
+     * Called once repeated segments have been removed before translation
+     *
+     * @param savedChars Billed characters saved by translating each distinct
+     *                   segment only once
+     */
+    default void onDuplicatesRemoved(int savedChars) {
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import io.github.cesarconte.subtitle_translator.model.SegmentTranslation;
+import io.github.cesarconte.subtitle_translator.repository.SegmentTranslationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment-level translation memory in front of DeepL.
+ *
+ * Segments are keyed by their normalized text, language pair and the
+ * translation options that change the output. Lookups hit a bounded
+ * in-memory tier first and then the segment_translations collection; only
+ * the remaining misses need to be sent to DeepL.
+ */
+@Service
+public class SegmentTranslationCache {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentTranslationCache.class);
+
+    private final SegmentTranslationRepository segmentTranslationRepository;
+    private final MeterRegistry meterRegistry;
+    private final DeeplProperties.SegmentCache settings;
+    private final Cache<String, String> memoryCache;
+
+    public SegmentTranslationCache(SegmentTranslationRepository segmentTranslationRepository,
+            MeterRegistry meterRegistry, DeeplProperties deeplProperties) {
+        this.segmentTranslationRepository = segmentTranslationRepository;
+        this.meterRegistry = meterRegistry;
+        this.settings = deeplProperties.getSegmentCache();
+        this.memoryCache = CacheBuilder.newBuilder()
+                .maximumSize(settings.getMaxEntries())
+                .build();
+    }
+
+    /**
+     * Looks up the cached translations of several segments
+     *
+     * @param texts      Source texts of the segments
+     * @param targetLang Target language code
+     * @param sourceLang Source language code (null for automatic detection)
+     * @param options    Translation options used for the segments
+     * @return Cached translations indexed by position in the input list;
+     *         positions without an entry are misses
+     */
+    public Map<Integer, String> lookup(List<String> texts, String targetLang, String sourceLang,
+            TranslationOptions options) {
+        Map<Integer, String> hits = new HashMap<>();
+        if (!settings.isEnabled() || texts.isEmpty()) {
+            return hits;
+        }
+
+        String languagePair = languagePair(sourceLang, targetLang);
+        Map<String, List<Integer>> pendingKeys = new HashMap<>();
+        int memoryHits = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            String key = segmentKey(texts.get(i), targetLang, sourceLang, options);
+            String cached = memoryCache.getIfPresent(key);
+            if (cached != null) {
+                hits.put(i, cached);
+                memoryHits++;
+            } else {
+                pendingKeys.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        int databaseHits = 0;
+        if (settings.isPersistent() && !pendingKeys.isEmpty()) {
+            try {
+                // One round trip for every segment that missed the memory tier
+                for (SegmentTranslation segment : segmentTranslationRepository.findAllById(pendingKeys.keySet())) {
+                    memoryCache.put(segment.getId(), segment.getTranslatedText());
+                    for (Integer index : pendingKeys.get(segment.getId())) {
+                        hits.put(index, segment.getTranslatedText());
+                        databaseHits++;
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Error reading segment translations from database", e);
+            }
+        }
+
+        int misses = texts.size() - hits.size();
+        meterRegistry.counter("translation.segment.cache", "tier", "memory", "pair", languagePair)
+                .increment(memoryHits);
+        meterRegistry.counter("translation.segment.cache", "tier", "database", "pair", languagePair)
+                .increment(databaseHits);
+        meterRegistry.counter("translation.segment.cache", "tier", "miss", "pair", languagePair)
+                .increment(misses);
+        logger.debug("Segment cache {}: {} memory hits, {} database hits, {} misses", languagePair, memoryHits,
+                databaseHits, misses);
+
+        return hits;
+    }
+
+    /**
+     * Stores freshly translated segments in both tiers
+     *
+     * @param texts           Source texts of the segments
+     * @param translatedTexts Translated texts, in the same order
+     * @param targetLang      Target language code
+     * @param sourceLang      Source language code (null for automatic detection)
+     * @param options         Translation options used for the segments
+     */
+    public void store(List<String> texts, List<String> translatedTexts, String targetLang, String sourceLang,
+            TranslationOptions options) {
+        if (!settings.isEnabled() || texts.isEmpty()) {
+            return;
+        }
+
+        Map<String, SegmentTranslation> segments = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = segmentKey(texts.get(i), targetLang, sourceLang, options);
+            memoryCache.put(key, translatedTexts.get(i));
+            segments.put(key, new SegmentTranslation(key, normalizeLanguage(sourceLang),
+                    normalizeLanguage(targetLang), translatedTexts.get(i)));
+        }
+
+        if (settings.isPersistent()) {
+            try {
+                segmentTranslationRepository.saveAll(segments.values());
+            } catch (Exception e) {
+                logger.warn("Error storing segment translations in database", e);
+            }
+        }
+    }
+
+    /**
+     * Builds the cache key of a segment
+     */
+    private String segmentKey(String text, String targetLang, String sourceLang, TranslationOptions options) {
+        String keySource = normalizeLanguage(sourceLang) + '|' + normalizeLanguage(targetLang)
+                + '|' + options.getFormality()
+                + '|' + (options.getGlossaryId() != null ? options.getGlossaryId() : "")
+                + '|' + options.isTagHandlingEnabled()
+                + '|' + options.isPreserveFormatting()
+                + '|' + options.isSplitSentences()
+                + '|' + normalizeText(text);
+        return DigestUtils.md5DigestAsHex(keySource.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Normalizes a segment so that whitespace-only differences share an entry
+     */
+    static String normalizeText(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                // Keep line breaks, which DeepL preserves, but drop surrounding blanks
+                pendingSpace = false;
+                if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != '\n') {
+                    normalized.append('\n');
+                }
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != '\n';
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    private static String normalizeLanguage(String language) {
+        return language == null || language.isEmpty() ? "auto" : language.toUpperCase();
+    }
+
+    private static String languagePair(String sourceLang, String targetLang) {
+        return normalizeLanguage(sourceLang) + "-" + normalizeLanguage(targetLang);
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.cesarconte.subtitle_translator.model.SubtitleContent;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacén de contenidos de subtítulos direccionado por hash.
+ *
+ * Cada contenido se guarda comprimido una sola vez en la colección
+ * subtitle_contents, con el hash MD5 de sus propios bytes como clave. Los
+ * hashes que ya se sabe que están guardados se recuerdan en memoria, así
+ * que guardar de nuevo un contenido conocido no hace ningún viaje a MongoDB.
+ * Los contenidos que ya no referencia ninguna traducción se borran con
+ * {@link #remove(String)}.
+ */
+@Service
+public class SubtitleContentStore {
+    private static final int MAX_KNOWN_HASHES = 100_000;
+
+    private final MongoTemplate mongoTemplate;
+
+    // Hashes de contenidos que ya están en la colección; se olvidan al borrarlos
+    private final Cache<String, Boolean> knownHashes = CacheBuilder.newBuilder()
+            .maximumSize(MAX_KNOWN_HASHES)
+            .build();
+
+    public SubtitleContentStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Guarda varios contenidos; los que aún no están guardados se escriben
+     * en una sola operación en lote.
+     *
+     * @param contents Contenidos a guardar
+     * @return Hash de cada contenido, en el mismo orden
+     */
+    public String[] storeAll(String... contents) {
+        String[] hashes = new String[contents.length];
+        List<String> missing = new ArrayList<>();
+        BulkOperations operations = null;
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < contents.length; i++) {
+            byte[] bytes = contents[i].getBytes(StandardCharsets.UTF_8);
+            hashes[i] = DigestUtils.md5DigestAsHex(bytes);
+            if (knownHashes.getIfPresent(hashes[i]) != null || missing.contains(hashes[i])) {
+                continue;
+            }
+            if (operations == null) {
+                operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SubtitleContent.class);
+            }
+            // Upsert que solo escribe al insertar: idempotente y sin duplicados
+            operations.upsert(Query.query(Criteria.where("_id").is(hashes[i])), new Update()
+                    .setOnInsert("data", compress(bytes))
+                    .setOnInsert("size", (long) bytes.length)
+                    .setOnInsert("createdAt", now));
+            missing.add(hashes[i]);
+        }
+
+        if (operations != null) {
+            operations.execute();
+            missing.forEach(hash -> knownHashes.put(hash, Boolean.TRUE));
+        }
+        return hashes;
+    }
+
+    /**
+     * Recupera un contenido por su hash.
+     *
+     * @param hash Hash del contenido
+     * @return El contenido descomprimido, o vacío si no existe
+     */
+    public Optional<String> load(String hash) {
+        if (hash == null) {
+            return Optional.empty();
+        }
+        SubtitleContent content = mongoTemplate.findById(hash, SubtitleContent.class);
+        if (content == null || content.getData() == null) {
+            return Optional.empty();
+        }
+        knownHashes.put(hash, Boolean.TRUE);
+        return Optional.of(new String(decompress(content.getData()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Borra un contenido y lo olvida, para que se vuelva a escribir si se
+     * guarda de nuevo.
+     *
+     * @param hash Hash del contenido
+     */
+    public void remove(String hash) {
+        knownHashes.invalidate(hash);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(hash)), SubtitleContent.class);
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
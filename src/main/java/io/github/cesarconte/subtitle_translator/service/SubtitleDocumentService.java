@@ -0,0 +1,134 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.util.SrtParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the parsed document of each translation session, so the file
+ * parsed by /init is reused by every later stage of the same session.
+ *
+ * Documents can also be uploaded once and stored by content hash; clients
+ * then refer to them by that handle instead of sending the file again.
+ */
+@Service
+public class SubtitleDocumentService {
+    private static final Logger logger = LoggerFactory.getLogger(SubtitleDocumentService.class);
+
+    private static final int MAX_SESSIONS = 1000;
+    private static final long SESSION_TTL_MINUTES = 30;
+
+    private final SrtParser srtParser;
+    private final Cache<String, ParsedSubtitleDocument> documents;
+    // Uploaded documents by content hash
+    private final Cache<String, ParsedSubtitleDocument> storedDocuments;
+
+    public SubtitleDocumentService(SrtParser srtParser) {
+        this.srtParser = srtParser;
+        this.documents = CacheBuilder.newBuilder()
+                .maximumSize(MAX_SESSIONS)
+                .expireAfterAccess(SESSION_TTL_MINUTES, TimeUnit.MINUTES)
+                .build();
+        this.storedDocuments = CacheBuilder.newBuilder()
+                .maximumSize(MAX_SESSIONS)
+                .expireAfterAccess(SESSION_TTL_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Parses SRT content
+     *
+     * @param content SRT file content
+     * @return The parsed document
+     */
+    public ParsedSubtitleDocument parse(String content) {
+        return srtParser.parseDocument(content);
+    }
+
+    /**
+     * Parses UTF-8 encoded SRT content as it is uploaded
+     *
+     * @param content SRT file content
+     * @return The parsed document
+     */
+    public ParsedSubtitleDocument parse(InputStream content) {
+        return srtParser.parseDocument(content);
+    }
+
+    /**
+     * Stores a parsed document under its content hash. Uploading the same
+     * content again keeps the document already stored.
+     *
+     * @param document Parsed document
+     * @return The stored document
+     */
+    public ParsedSubtitleDocument store(ParsedSubtitleDocument document) {
+        ParsedSubtitleDocument stored = storedDocuments.asMap().putIfAbsent(document.getContentHash(), document);
+        return stored != null ? stored : document;
+    }
+
+    /**
+     * Gets a stored document
+     *
+     * @param documentId Content hash returned when the document was stored
+     * @return The document, or empty if unknown or expired
+     */
+    public Optional<ParsedSubtitleDocument> getStored(String documentId) {
+        return Optional.ofNullable(storedDocuments.getIfPresent(documentId));
+    }
+
+    /**
+     * Associates a parsed document with a session
+     *
+     * @param sessionId Translation session ID
+     * @param document  Parsed document
+     */
+    public void register(String sessionId, ParsedSubtitleDocument document) {
+        documents.put(sessionId, document);
+    }
+
+    /**
+     * Gets the document of a session, parsing the content only if the session
+     * has none or it was parsed from different content
+     *
+     * @param sessionId Translation session ID
+     * @param content   SRT file content sent with the request, or null to use
+     *                  the document uploaded when the session started
+     * @return The parsed document, or null if there is neither content nor a
+     *         document for the session
+     */
+    public ParsedSubtitleDocument forSession(String sessionId, String content) {
+        ParsedSubtitleDocument document = documents.getIfPresent(sessionId);
+        if (content == null) {
+            return document;
+        }
+        if (document != null && document.getContentHash()
+                .equals(DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)))) {
+            return document;
+        }
+
+        logger.debug("No parsed document for session {}, parsing content", sessionId);
+        document = parse(content);
+        documents.put(sessionId, document);
+        return document;
+    }
+
+    /**
+     * Releases the document of a finished session
+     *
+     * @param sessionId Translation session ID
+     */
+    public void evict(String sessionId) {
+        documents.invalidate(sessionId);
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.TimingRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bulk timing operations over whole subtitle documents.
+ *
+ * All operations run in a single pass over the primitive time arrays of a
+ * {@link CompactSubtitleDocument}; text is shared with the input document.
+ */
+@Service
+public class SubtitleTimingService {
+
+    // Largest time that fits the "HH:MM:SS,mmm" format
+    private static final long MAX_TIME_MS = 100L * 3_600_000 - 1;
+
+    /**
+     * Adjusts the times of a document
+     *
+     * @param subtitles Subtitles to adjust
+     * @param options   Timing operations to apply
+     * @return The retimed document
+     * @throws IllegalArgumentException if the frame rates are incomplete or
+     *                                  not positive
+     */
+    public CompactSubtitleDocument adjust(CompactSubtitleDocument subtitles, TimingRequest options) {
+        double scale = frameRateScale(options.getSourceFrameRate(), options.getTargetFrameRate());
+        long shiftMs = options.getShiftMs();
+        int minDurationMs = Math.max(0, options.getMinDurationMs());
+
+        int size = subtitles.size();
+        int[] startMs = new int[size];
+        int[] endMs = new int[size];
+        // Last block with a parsed time code, for overlap clamping
+        int previous = -1;
+
+        for (int i = 0; i < size; i++) {
+            if (subtitles.getStartMs(i) < 0) {
+                // Unparsed time codes are left as they are
+                startMs[i] = -1;
+                endMs[i] = -1;
+                continue;
+            }
+
+            long start = clamp(Math.round(subtitles.getStartMs(i) * scale) + shiftMs);
+            long end = clamp(Math.round(subtitles.getEndMs(i) * scale) + shiftMs);
+            if (end < start) {
+                end = start;
+            }
+            if (end - start < minDurationMs) {
+                end = clamp(start + minDurationMs);
+            }
+
+            if (options.isClampOverlaps() && previous >= 0 && endMs[previous] > start) {
+                endMs[previous] = (int) Math.max(startMs[previous], start);
+            }
+
+            startMs[i] = (int) start;
+            endMs[i] = (int) end;
+            previous = i;
+        }
+
+        return subtitles.withTimes(startMs, endMs);
+    }
+
+    /**
+     * Factor that converts times from the source to the target frame rate
+     */
+    private static double frameRateScale(Double sourceFrameRate, Double targetFrameRate) {
+        if (sourceFrameRate == null && targetFrameRate == null) {
+            return 1.0;
+        }
+        if (sourceFrameRate == null || targetFrameRate == null || sourceFrameRate <= 0 || targetFrameRate <= 0) {
+            throw new IllegalArgumentException("Both frame rates must be positive numbers");
+        }
+        // A frame keeps its number, so its time changes by source/target
+        return sourceFrameRate / targetFrameRate;
+    }
+
+    private static long clamp(long timeMs) {
+        return Math.max(0, Math.min(MAX_TIME_MS, timeMs));
+    }
+}
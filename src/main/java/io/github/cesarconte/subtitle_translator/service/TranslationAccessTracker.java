@@ -0,0 +1,118 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects access statistics of stored translations in memory and writes
+ * them periodically.
+ *
+ * Reads only record the access here; the flush sends one unordered bulk
+ * write with an $inc of accessCount and a $max of lastAccessedAt per
+ * translation, so the stored contents are never rewritten to count an
+ * access.
+ */
+@Service
+public class TranslationAccessTracker {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationAccessTracker.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    // Accesses not written yet, by translation ID
+    private final Map<String, PendingAccess> pendingAccesses = new ConcurrentHashMap<>();
+
+    public TranslationAccessTracker(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Records an access to a stored translation
+     *
+     * @param translationId Translation ID
+     */
+    public void recordAccess(String translationId) {
+        recordAccesses(translationId, 1, System.currentTimeMillis());
+    }
+
+    private void recordAccesses(String translationId, int count, long lastAccessMs) {
+        pendingAccesses.merge(translationId, new PendingAccess(count, lastAccessMs),
+                (pending, access) -> new PendingAccess(pending.count + access.count,
+                        Math.max(pending.lastAccessMs, access.lastAccessMs)));
+    }
+
+    /**
+     * Writes the accesses recorded since the last flush
+     *
+     * @return Number of translations updated
+     */
+    @Scheduled(fixedDelayString = "${app.access-stats.flush-interval-ms:10000}")
+    public int flush() {
+        if (pendingAccesses.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Translation.class);
+        Map<String, PendingAccess> flushed = new ConcurrentHashMap<>();
+        for (String translationId : pendingAccesses.keySet()) {
+            // Accesses recorded after the removal go to the next flush
+            PendingAccess access = pendingAccesses.remove(translationId);
+            if (access == null) {
+                continue;
+            }
+            flushed.put(translationId, access);
+            operations.updateOne(
+                    Query.query(Criteria.where("_id").is(translationId)),
+                    new Update()
+                            .inc("accessCount", access.count)
+                            .max("lastAccessedAt", LocalDateTime.ofInstant(
+                                    Instant.ofEpochMilli(access.lastAccessMs), ZoneId.systemDefault())));
+        }
+        if (flushed.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            operations.execute();
+            logger.debug("Flushed access statistics of {} translations", flushed.size());
+            return flushed.size();
+        } catch (RuntimeException e) {
+            logger.warn("Error writing access statistics, retrying on the next flush", e);
+            flushed.forEach((translationId, access) -> recordAccesses(translationId, access.count,
+                    access.lastAccessMs));
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    /**
+     * Accesses to one translation since the last flush
+     */
+    private static final class PendingAccess {
+        private final int count;
+        private final long lastAccessMs;
+
+        PendingAccess(int count, long lastAccessMs) {
+            this.count = count;
+            this.lastAccessMs = lastAccessMs;
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.model.TranslationRequest;
+import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
+import io.github.cesarconte.subtitle_translator.util.SrtParser;
+import io.github.cesarconte.subtitle_translator.util.SubtitleFormatValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs subtitle translations in the background.
+ *
+ * Jobs are queued on a bounded executor so the HTTP request that submits
+ * them returns immediately; progress is reported through
+ * {@link ProgressTrackingService} and the finished response is kept for a
+ * limited time until the client fetches it. Identical files submitted while
+ * a translation of them is running attach to that job instead of
+ * translating the file again.
+ */
+@Service
+public class TranslationJobService {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationJobService.class);
+
+    private final TranslationService translationService;
+    private final SrtParser srtParser;
+    private final ProgressTrackingService progressTrackingService;
+    private final TranslationStorageService translationStorageService;
+    private final SubtitleDocumentService subtitleDocumentService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+    // Room for the running and queued jobs; submissions wait or fail when none is left
+    private final Semaphore admissions;
+
+    // Running translations by content hash and language pair
+    private final Map<String, InFlightJob> inFlightJobs = new ConcurrentHashMap<>();
+
+    // Sessions queued or running
+    private final Set<String> pendingJobs = ConcurrentHashMap.newKeySet();
+    // Finished responses waiting to be fetched
+    private final Cache<String, TranslationResponse> results;
+    // Language pair of the job of each session, to recognize repeated submissions
+    private final Cache<String, String> submittedSessions;
+
+    public TranslationJobService(TranslationService translationService, SrtParser srtParser,
+            ProgressTrackingService progressTrackingService, TranslationStorageService translationStorageService,
+            SubtitleDocumentService subtitleDocumentService, MeterRegistry meterRegistry,
+            AppProperties appProperties) {
+        this.translationService = translationService;
+        this.srtParser = srtParser;
+        this.progressTrackingService = progressTrackingService;
+        this.translationStorageService = translationStorageService;
+        this.subtitleDocumentService = subtitleDocumentService;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = new ObjectMapper();
+
+        AppProperties.Jobs settings = appProperties.getJobs();
+        int workers = Math.max(1, settings.getMaxConcurrentJobs());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "translation-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.admissions = new Semaphore(workers + Math.max(1, settings.getQueueCapacity()));
+        this.results = CacheBuilder.newBuilder()
+                .expireAfterWrite(settings.getResultTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+        this.submittedSessions = CacheBuilder.newBuilder()
+                .expireAfterWrite(settings.getResultTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Queues a subtitle translation, or attaches the session to a running
+     * translation of the same file and language pair
+     *
+     * @param sessionId Translation session ID for progress tracking
+     * @param request   Translation request data
+     * @param document  Document parsed from the request content
+     * @return Future completed with the response once it is stored for the
+     *         session
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public CompletableFuture<TranslationResponse> submit(String sessionId, TranslationRequest request,
+            ParsedSubtitleDocument document) {
+        try {
+            return submit(sessionId, request, document, 0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing the translation", e);
+        }
+    }
+
+    /**
+     * Queues a subtitle translation, waiting for room in the job queue if it
+     * is full, or attaches the session to a running translation of the same
+     * file and language pair
+     *
+     * @param sessionId Translation session ID for progress tracking
+     * @param request   Translation request data
+     * @param document  Document parsed from the request content
+     * @param timeout   Maximum time to wait for room in the job queue
+     * @param unit      Unit of the timeout
+     * @return Future completed with the response once it is stored for the
+     *         session
+     * @throws RejectedExecutionException if the job queue is still full
+     *                                    after the timeout
+     * @throws InterruptedException       if interrupted while waiting
+     */
+    public CompletableFuture<TranslationResponse> submit(String sessionId, TranslationRequest request,
+            ParsedSubtitleDocument document, long timeout, TimeUnit unit) throws InterruptedException {
+        String jobKey = document.getContentHash() + '|' + languagePair(request);
+        pendingJobs.add(sessionId);
+        submittedSessions.put(sessionId, languagePair(request));
+
+        InFlightJob job = new InFlightJob(sessionId);
+        // Attaching to a running job takes no room in the queue
+        InFlightJob runningJob = inFlightJobs.get(jobKey);
+        if (runningJob == null) {
+            if (!admissions.tryAcquire(timeout, unit)) {
+                reject(sessionId);
+                throw new RejectedExecutionException("Too many translations in progress");
+            }
+            runningJob = inFlightJobs.putIfAbsent(jobKey, job);
+            if (runningJob != null) {
+                admissions.release();
+            }
+        }
+        if (runningJob != null) {
+            logger.info("Session {} attached to running translation of session {}", sessionId,
+                    runningJob.leaderSessionId);
+            meterRegistry.counter("translation.jobs.coalesced").increment();
+            progressTrackingService.followSession(sessionId, runningJob.leaderSessionId);
+            // Each session gets its own copy, named after its own upload
+            return runningJob.result.thenApply(response -> {
+                TranslationResponse own = response.withFileName(request.getFileName());
+                complete(sessionId, own);
+                return own;
+            });
+        }
+
+        try {
+            executor.execute(() -> {
+                TranslationResponse response = null;
+                try {
+                    response = translate(sessionId, request, document);
+                    complete(sessionId, response);
+                } catch (Throwable t) {
+                    logger.error("Translation job of session {} failed", sessionId, t);
+                    response = new TranslationResponse(false, "Error translating: " + t.getMessage());
+                    pendingJobs.remove(sessionId);
+                    progressTrackingService.completeTracking(sessionId, false, t.getMessage());
+                    if (t instanceof Error) {
+                        throw (Error) t;
+                    }
+                } finally {
+                    // Attached sessions and batches wait on this future, whatever happened
+                    admissions.release();
+                    inFlightJobs.remove(jobKey, job);
+                    job.result.complete(response);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Only after shutdown: the admissions never exceed the queue
+            admissions.release();
+            inFlightJobs.remove(jobKey, job);
+            reject(sessionId);
+            // Sessions that attached in the meantime share the rejection
+            job.result.complete(new TranslationResponse(false, "Too many translations in progress"));
+            throw e;
+        }
+        return job.result;
+    }
+
+    private void reject(String sessionId) {
+        pendingJobs.remove(sessionId);
+        submittedSessions.invalidate(sessionId);
+        subtitleDocumentService.evict(sessionId);
+        progressTrackingService.completeTracking(sessionId, false, "Too many translations in progress");
+    }
+
+    /**
+     * Checks whether a session already has a job, started at /init, for the
+     * languages of a request
+     *
+     * @param sessionId Translation session ID
+     * @param request   Translation request data
+     * @return empty if the session has no job; otherwise whether the job
+     *         translates between the same languages
+     */
+    public Optional<Boolean> submittedFor(String sessionId, TranslationRequest request) {
+        String submitted = submittedSessions.getIfPresent(sessionId);
+        return submitted == null ? Optional.empty() : Optional.of(submitted.equals(languagePair(request)));
+    }
+
+    private static String languagePair(TranslationRequest request) {
+        // The same languages in another order are the same job
+        List<String> targets = new ArrayList<>(request.targets());
+        Collections.sort(targets);
+        return request.getSourceLanguage() + "|" + String.join(",", targets);
+    }
+
+    /**
+     * Checks whether a job is still queued or running
+     *
+     * @param sessionId Translation session ID
+     * @return true if the result is not available yet
+     */
+    public boolean isPending(String sessionId) {
+        return pendingJobs.contains(sessionId);
+    }
+
+    /**
+     * Gets the response of a finished job
+     *
+     * @param sessionId Translation session ID
+     * @return The response, or empty if the job is unknown, still running or
+     *         its result has expired
+     */
+    public Optional<TranslationResponse> getResult(String sessionId) {
+        return Optional.ofNullable(results.getIfPresent(sessionId));
+    }
+
+    /**
+     * Discards the result of a session before it expires, once its consumer
+     * no longer needs it
+     *
+     * @param sessionId Translation session ID
+     */
+    public void evictResult(String sessionId) {
+        results.invalidate(sessionId);
+        submittedSessions.invalidate(sessionId);
+    }
+
+    private void complete(String sessionId, TranslationResponse response) {
+        results.put(sessionId, response);
+        pendingJobs.remove(sessionId);
+        subtitleDocumentService.evict(sessionId);
+    }
+
+    /**
+     * Translates the subtitle file of a job, reusing a stored translation
+     * when there is one
+     */
+    private TranslationResponse translate(String sessionId, TranslationRequest request,
+            ParsedSubtitleDocument document) {
+        try {
+            // Content was parsed once when the session started
+            CompactSubtitleDocument subtitles = document.getSubtitles();
+
+            // Format validation: max 40 characters per line
+            List<SubtitleFormatValidator.ValidationResult> violations = SubtitleFormatValidator
+                    .validateLineLength(subtitles, 40);
+            String formatWarning = null;
+            if (!violations.isEmpty()) {
+                StringBuilder warningMsg = new StringBuilder(
+                        "Warning: The following lines exceed 40 characters per line:\n");
+                for (SubtitleFormatValidator.ValidationResult v : violations) {
+                    warningMsg.append(String.format("Subtitle #%d, line %d (%d chars): %s\n", v.subtitleId,
+                            v.lineNumber, v.length, v.lineContent));
+                }
+                formatWarning = warningMsg.toString();
+                logger.warn(formatWarning);
+            }
+
+            List<String> targetLangs = request.targets();
+            if (targetLangs.isEmpty()) {
+                throw new IllegalArgumentException("No target language");
+            }
+
+            // Check which translations we already have in the database
+            Map<String, TranslationResponse> responses = new LinkedHashMap<>();
+            List<String> missingLangs = new ArrayList<>();
+            for (String targetLang : targetLangs) {
+                Optional<Translation> existingTranslation = translationStorageService.findExistingTranslationByHash(
+                        document.getContentHash(),
+                        request.getSourceLanguage(),
+                        targetLang);
+                if (existingTranslation.isPresent()) {
+                    responses.put(targetLang, storedResponse(existingTranslation.get()));
+                } else {
+                    missingLangs.add(targetLang);
+                }
+            }
+
+            if (missingLangs.isEmpty()) {
+                logger.info("Found existing translation in database. Returning cached result.");
+                reportCachedProgress(sessionId);
+            } else {
+                // Get source language
+                String sourceLang = "auto".equals(request.getSourceLanguage()) ? null : request.getSourceLanguage();
+
+                // Perform the translation of every missing language with progress tracking;
+                // parsing, validation and deduplication are shared by all of them
+                Map<String, CompactSubtitleDocument> translatedDocuments = translationService
+                        .translateDocumentToLanguages(document, missingLangs, sourceLang, sessionId,
+                                progressTrackingService);
+
+                String originalContent = originalContent(request, subtitles);
+                for (String targetLang : missingLangs) {
+                    responses.put(targetLang, saveTranslation(request, document, originalContent, targetLang,
+                            translatedDocuments.get(targetLang)));
+                }
+            }
+
+            // Mark translation as complete in progress tracking
+            progressTrackingService.completeTracking(sessionId, true,
+                    missingLangs.isEmpty() ? "Cached translation retrieved" : "Translation completed");
+
+            TranslationResponse response;
+            if (targetLangs.size() == 1) {
+                response = responses.get(targetLangs.get(0));
+            } else {
+                response = multiTargetResponse(targetLangs, responses);
+            }
+            // The warning travels apart from the content, so the file stays valid SRT
+            response.setFormatWarning(formatWarning);
+            response.setFileName(request.getFileName());
+            return response;
+
+        } catch (Exception e) {
+            logger.error("Error translating SRT file", e);
+            // Update progress with error
+            progressTrackingService.completeTracking(sessionId, false, e.getMessage());
+            return new TranslationResponse(false, "Error translating: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores a new translation in the database and builds its response
+     */
+    private TranslationResponse saveTranslation(TranslationRequest request, ParsedSubtitleDocument document,
+            String originalContent, String targetLang, CompactSubtitleDocument translatedSubtitles) {
+        // Generate translated SRT content
+        String translatedContent = srtParser.generate(translatedSubtitles);
+
+        // Prepare confidence data for the response
+        List<TranslationResponse.SubtitleConfidence> confidenceData = new ArrayList<>();
+        double totalConfidence = 0;
+
+        for (int i = 0; i < translatedSubtitles.size(); i++) {
+            double confidenceScore = translatedSubtitles.getConfidenceScore(i);
+            confidenceData.add(new TranslationResponse.SubtitleConfidence(
+                    translatedSubtitles.getId(i),
+                    confidenceScore,
+                    SubtitleBlock.confidenceLevel(confidenceScore)));
+            totalConfidence += confidenceScore;
+        }
+
+        // Calculate average confidence
+        double averageConfidence = translatedSubtitles.size() == 0 ? 1.0
+                : totalConfidence / translatedSubtitles.size();
+
+        // Store translation in database
+        String confidenceDataJson;
+        try {
+            confidenceDataJson = objectMapper.writeValueAsString(confidenceData);
+        } catch (Exception e) {
+            logger.warn("Error serializing confidence data", e);
+            confidenceDataJson = "[]";
+        }
+
+        // Save the translation to the database
+        translationStorageService.saveTranslation(
+                document.getContentHash(),
+                request.getFileName() != null ? request.getFileName() : "subtitle.srt",
+                originalContent,
+                request.getSourceLanguage(),
+                targetLang,
+                translatedContent,
+                confidenceDataJson,
+                averageConfidence,
+                SubtitleBlock.confidenceLevel(averageConfidence));
+
+        TranslationResponse response = new TranslationResponse(translatedContent, confidenceData,
+                averageConfidence);
+        response.setTargetLanguage(targetLang);
+        response.setTranslatedSubtitles(translatedSubtitles);
+        return response;
+    }
+
+    /**
+     * Builds the response of a job with several target languages: one
+     * response per language, in the requested order
+     */
+    private static TranslationResponse multiTargetResponse(List<String> targetLangs,
+            Map<String, TranslationResponse> responses) {
+        List<TranslationResponse> translations = new ArrayList<>(targetLangs.size());
+        double totalConfidence = 0;
+        for (String targetLang : targetLangs) {
+            TranslationResponse translation = responses.get(targetLang);
+            translations.add(translation);
+            totalConfidence += translation.getAverageConfidence();
+        }
+
+        TranslationResponse response = new TranslationResponse();
+        response.setSuccess(true);
+        response.setMessage("Translation completed successfully");
+        response.setAverageConfidence(totalConfidence / targetLangs.size());
+        response.setTranslations(translations);
+        return response;
+    }
+
+    /**
+     * Original content to store with a translation. Uploaded files are not
+     * kept as text, so they are stored as written back from the parsed
+     * document.
+     */
+    private String originalContent(TranslationRequest request, CompactSubtitleDocument subtitles) {
+        return request.getSrtContent() != null ? request.getSrtContent() : srtParser.generate(subtitles);
+    }
+
+    /**
+     * Updates progress to 100% immediately when every translation was found
+     * in the database
+     */
+    private void reportCachedProgress(String sessionId) {
+        int totalChars = progressTrackingService.getProgress(sessionId) != null
+                ? progressTrackingService.getProgress(sessionId).getTotalChars()
+                : 0;
+        progressTrackingService.updateProgress(
+                sessionId, "cached", "Using cached translation...", 0);
+        progressTrackingService.updateProgress(
+                sessionId, "cached", "Translation found in database", totalChars);
+    }
+
+    /**
+     * Builds the response for a translation found in the database
+     */
+    private TranslationResponse storedResponse(Translation translation) {
+        List<TranslationResponse.SubtitleConfidence> confidenceData = new ArrayList<>();
+
+        try {
+            // Convert JSON string to list of SubtitleConfidence objects
+            if (translation.getConfidenceData() != null && !translation.getConfidenceData().isEmpty()) {
+                confidenceData = objectMapper.readValue(
+                        translation.getConfidenceData(),
+                        objectMapper.getTypeFactory().constructCollectionType(
+                                List.class,
+                                TranslationResponse.SubtitleConfidence.class));
+            }
+        } catch (Exception e) {
+            logger.warn("Error parsing confidence data from database", e);
+            // Continue with empty confidence data if there's an error
+        }
+
+        TranslationResponse response = new TranslationResponse(
+                translationStorageService.getTranslatedContent(translation),
+                confidenceData,
+                translation.getAverageConfidence());
+        response.setTargetLanguage(translation.getTargetLanguage());
+        return response;
+    }
+
+    /**
+     * A translation in course and the sessions waiting for its response
+     */
+    private static class InFlightJob {
+        private final String leaderSessionId;
+        private final CompletableFuture<TranslationResponse> result = new CompletableFuture<>();
+
+        InFlightJob(String leaderSessionId) {
+            this.leaderSessionId = leaderSessionId;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
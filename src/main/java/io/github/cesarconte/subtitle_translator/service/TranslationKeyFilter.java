@@ -0,0 +1,248 @@
+package io.github.cesarconte.subtitle_translator.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over the keys (contentHash, sourceLanguage, targetLanguage)
+ * of the stored translations.
+ *
+ * Most uploads are new files, so most whole-file cache lookups are misses. A
+ * key the filter has never seen is a definite miss and needs no database
+ * query; a possible hit still goes to the database. The filter is built
+ * from the collection once the application is ready, receives every saved
+ * key and is rebuilt with twice the capacity when it fills up. Deleted
+ * translations stay in it until the next rebuild, which only costs a query.
+ *
+ * Saves only reach the filter of the instance that made them. When several
+ * instances share the database, each one periodically adds the keys created
+ * since its last sync, so a translation saved by another instance can be
+ * missed only until the next sync. Such a miss translates the file again,
+ * and the save merges into the stored translation.
+ */
+@Service
+public class TranslationKeyFilter {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationKeyFilter.class);
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AppProperties.TranslationFilter settings;
+
+    // Null until the first build; every key is a possible hit meanwhile
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile long capacity;
+    // Keys saved while a rebuild reads the collection, added before the swap
+    private List<String> keysDuringRebuild;
+    // Creation time from which translations saved elsewhere may be missing
+    private volatile LocalDateTime syncedUntil;
+    // Rebuilds read the whole collection; they get a thread of their own
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "translation-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TranslationKeyFilter(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            AppProperties appProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.settings = appProperties.getTranslationFilter();
+
+        Gauge.builder("translation.filter.expected.fpp", this, TranslationKeyFilter::getExpectedFpp)
+                .description("Current false positive probability of the stored translation filter")
+                .register(meterRegistry);
+        Gauge.builder("translation.filter.memory.bytes", this, TranslationKeyFilter::getMemoryBytes)
+                .description("Size of the bit array of the stored translation filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("translation.filter.entries", this, TranslationKeyFilter::getApproximateEntries)
+                .description("Approximate number of keys in the stored translation filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (settings.isEnabled()) {
+            // The application serves requests meanwhile, with every lookup going to the database
+            startRebuild(settings.getExpectedInsertions());
+        }
+    }
+
+    /**
+     * Tells whether a translation may be stored for the given key
+     *
+     * @return false only when the translation is certainly not stored
+     */
+    public boolean mightContain(String contentHash, String sourceLanguage, String targetLanguage) {
+        BloomFilter<CharSequence> current = filter;
+        if (current == null) {
+            return true;
+        }
+        boolean possible = current.mightContain(key(contentHash, sourceLanguage, targetLanguage));
+        if (!possible) {
+            meterRegistry.counter("translation.filter.skipped.lookups").increment();
+        }
+        return possible;
+    }
+
+    /**
+     * Adds the key of a saved translation
+     */
+    public synchronized void put(String contentHash, String sourceLanguage, String targetLanguage) {
+        String key = key(contentHash, sourceLanguage, targetLanguage);
+        if (keysDuringRebuild != null) {
+            keysDuringRebuild.add(key);
+        }
+        BloomFilter<CharSequence> current = filter;
+        if (current == null) {
+            return;
+        }
+        current.put(key);
+        if (keysDuringRebuild == null && current.approximateElementCount() > capacity) {
+            logger.info("Stored translation filter is full, rebuilding with capacity {}", capacity * 2);
+            startRebuild(capacity * 2);
+        }
+    }
+
+    /**
+     * Starts a rebuild in the background unless one is already running
+     *
+     * @param minCapacity Minimum number of keys the filter is sized for
+     */
+    synchronized void startRebuild(long minCapacity) {
+        if (keysDuringRebuild != null) {
+            return;
+        }
+        keysDuringRebuild = new ArrayList<>();
+        rebuildExecutor.execute(() -> rebuild(minCapacity));
+    }
+
+    /**
+     * Builds a new filter from the stored translations and replaces the
+     * current one. Keys saved meanwhile are collected by put.
+     *
+     * @param minCapacity Minimum number of keys the filter is sized for
+     */
+    private void rebuild(long minCapacity) {
+        try {
+            // Translations created from now on are read again by the next sync
+            LocalDateTime started = LocalDateTime.now();
+            long stored = mongoTemplate.estimatedCount(Translation.class);
+            long newCapacity = Math.max(minCapacity, stored * 2);
+            BloomFilter<CharSequence> newFilter = BloomFilter.create(
+                    Funnels.stringFunnel(StandardCharsets.UTF_8), newCapacity, settings.getFalsePositiveRate());
+
+            Query query = new Query();
+            query.fields().include("contentHash", "sourceLanguage", "targetLanguage").exclude("_id");
+            String collection = mongoTemplate.getCollectionName(Translation.class);
+            try (Stream<Document> keys = mongoTemplate.stream(query, Document.class, collection)) {
+                keys.forEach(key -> newFilter.put(key(key.getString("contentHash"),
+                        key.getString("sourceLanguage"), key.getString("targetLanguage"))));
+            }
+
+            synchronized (this) {
+                keysDuringRebuild.forEach(newFilter::put);
+                syncedUntil = started;
+                capacity = newCapacity;
+                filter = newFilter;
+            }
+            logger.info("Stored translation filter built with {} keys (capacity {})",
+                    newFilter.approximateElementCount(), newCapacity);
+        } catch (RuntimeException e) {
+            // The current filter, or none, stays in use; lookups it cannot rule out go to the database
+            logger.warn("Error building the stored translation filter", e);
+        } finally {
+            synchronized (this) {
+                keysDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Adds the keys of the translations created since the last sync or
+     * rebuild, including those saved by other instances
+     */
+    @Scheduled(fixedDelayString = "${app.translation-filter.sync-interval-ms:60000}")
+    public void syncNewKeys() {
+        LocalDateTime from = syncedUntil;
+        if (filter == null || from == null) {
+            return;
+        }
+        synchronized (this) {
+            if (keysDuringRebuild != null) {
+                // The rebuild reads them
+                return;
+            }
+        }
+
+        LocalDateTime started = LocalDateTime.now();
+        // Margin for clock differences between instances
+        Query query = Query.query(Criteria.where("createdAt").gte(from.minus(SYNC_OVERLAP)));
+        query.fields().include("contentHash", "sourceLanguage", "targetLanguage").exclude("_id");
+        String collection = mongoTemplate.getCollectionName(Translation.class);
+        try (Stream<Document> keys = mongoTemplate.stream(query, Document.class, collection)) {
+            keys.forEach(key -> put(key.getString("contentHash"), key.getString("sourceLanguage"),
+                    key.getString("targetLanguage")));
+            syncedUntil = started;
+        } catch (RuntimeException e) {
+            // The same keys are read again by the next sync
+            logger.warn("Error syncing the stored translation filter", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    public double getExpectedFpp() {
+        BloomFilter<CharSequence> current = filter;
+        return current != null ? current.expectedFpp() : 1.0;
+    }
+
+    /**
+     * Size of the bit array, from the same formula Guava sizes it with
+     */
+    public long getMemoryBytes() {
+        if (filter == null) {
+            return 0;
+        }
+        double p = settings.getFalsePositiveRate();
+        long bits = (long) (-capacity * Math.log(p) / (Math.log(2) * Math.log(2)));
+        return (bits + 7) / 8;
+    }
+
+    public long getApproximateEntries() {
+        BloomFilter<CharSequence> current = filter;
+        return current != null ? current.approximateElementCount() : 0;
+    }
+
+    private static String key(String contentHash, String sourceLanguage, String targetLanguage) {
+        return contentHash + "|" + sourceLanguage + "|" + targetLanguage;
+    }
+}
@@ -1,15 +1,13 @@
 package io.github.cesarconte.subtitle_translator.service;
 
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
 import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
 import io.github.cesarconte.subtitle_translator.model.LanguageDetectionResponse;
 import io.github.cesarconte.subtitle_translator.model.TranslationRequest;
 import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 import com.optimaize.langdetect.LanguageDetector;
 import com.optimaize.langdetect.LanguageDetectorBuilder;
 import com.optimaize.langdetect.ngram.NgramExtractors;
@@ -17,11 +15,17 @@ import com.optimaize.langdetect.profiles.LanguageProfile;
 import com.optimaize.langdetect.profiles.LanguageProfileReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,18 +36,16 @@ import java.util.regex.Pattern;
 public class TranslationService {
     private static final Logger logger = LoggerFactory.getLogger(TranslationService.class);
 
-    private final RestTemplate restTemplate;
     private final DeeplProperties deeplProperties;
+    private final DeeplClient deeplClient;
+    private final GroupSizingPolicy groupSizingPolicy;
+    private final SegmentTranslationCache segmentTranslationCache;
+    private final MeterRegistry meterRegistry;
+    private final int maxInFlightRequests;
 
     @Value("${deepl.api.key}")
     private String apiKey;
 
-    @Value("${deepl.api.url:https://api-free.deepl.com/v2}")
-    private String apiUrl;
-
-    private static final String SUBTITLE_SEPARATOR = "<SUBT_DIV>";
-    private static final int GROUP_SIZE = 5; // Reduced group size for better structure preservation
-
     private static LanguageDetector languageDetector;
     private static List<LanguageProfile> languageProfiles;
 
@@ -58,9 +60,15 @@ public class TranslationService {
         }
     }
 
-    public TranslationService(DeeplProperties deeplProperties) {
-        this.restTemplate = new RestTemplate();
+    public TranslationService(DeeplProperties deeplProperties, DeeplClient deeplClient,
+            GroupSizingPolicy groupSizingPolicy, SegmentTranslationCache segmentTranslationCache,
+            MeterRegistry meterRegistry) {
         this.deeplProperties = deeplProperties;
+        this.deeplClient = deeplClient;
+        this.groupSizingPolicy = groupSizingPolicy;
+        this.segmentTranslationCache = segmentTranslationCache;
+        this.meterRegistry = meterRegistry;
+        this.maxInFlightRequests = Math.max(1, deeplProperties.getConcurrency().getMaxInFlightRequests());
     }
 
     @jakarta.annotation.PostConstruct
@@ -90,71 +98,150 @@ public class TranslationService {
      * @return Translated text
      */
     public String translateText(String text, String targetLang, String sourceLang, TranslationOptions options) {
-        if (options == null) {
-            options = new TranslationOptions();
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        headers.set("Authorization", "DeepL-Auth-Key " + apiKey);
-
-        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-        formData.add("text", text);
-        formData.add("target_lang", targetLang);
-
-        // Añadir parámetros opcionales si están disponibles
-        if (sourceLang != null && !sourceLang.equals("auto")) {
-            formData.add("source_lang", sourceLang);
-        }
+        return translateBatch(List.of(text), targetLang, sourceLang, options).get(0);
+    }
 
-        // Opciones avanzadas de traducción
-        if (options.getFormality() != null && !options.getFormality().equals("default")) {
-            formData.add("formality", options.getFormality());
-        }
+    /**
+     * Translates several texts using the DeepL API. Segments already in the
+     * translation memory are served from it; the rest are packed into as few
+     * requests as the request limits allow, sending one "text" parameter per
+     * entry, and the results are mapped back by position.
+     *
+     * @param texts      Texts to translate
+     * @param targetLang Target language code
+     * @param sourceLang Source language code (null for automatic detection)
+     * @param options    Additional translation options (can be null for defaults)
+     * @return Translated texts, in the same order as the input
+     */
+    public List<String> translateBatch(List<String> texts, String targetLang, String sourceLang,
+            TranslationOptions options) {
+        return translateSegments(texts, targetLang, sourceLang, options != null ? options : new TranslationOptions(),
+                null).block();
+    }
 
-        if (options.isTagHandlingEnabled()) {
-            formData.add("tag_handling", "xml");
-        }
+    /**
+     * Translates segments through the translation memory and the concurrent
+     * group engine. Repeated segments are translated once and fanned back out
+     * to every position that uses them, and only cache misses are grouped and
+     * sent to DeepL, keeping up to the configured number of requests in
+     * flight.
+     *
+     * @param texts      Texts to translate
+     * @param targetLang Target language code
+     * @param sourceLang Source language code (null for automatic detection)
+     * @param options    Translation options
+     * @param listener   Optional progress listener
+     * @return Translated texts, in the same order as the input
+     */
+    private Mono<List<String>> translateSegments(List<String> texts, String targetLang, String sourceLang,
+            TranslationOptions options, SegmentProgressListener listener) {
+        return translateSegments(SegmentPlan.of(texts), targetLang, sourceLang, options, listener);
+    }
 
-        if (options.getGlossaryId() != null && !options.getGlossaryId().isEmpty()) {
-            formData.add("glossary_id", options.getGlossaryId());
-        }
+    /**
+     * Translates deduplicated segments into one language
+     *
+     * @param plan       Distinct segments of the texts to translate
+     * @param targetLang Target language code
+     * @param sourceLang Source language code (null for automatic detection)
+     * @param options    Translation options
+     * @param listener   Optional progress listener
+     * @return Translated texts, in the same order as the planned texts
+     */
+    private Mono<List<String>> translateSegments(SegmentPlan plan, String targetLang, String sourceLang,
+            TranslationOptions options, SegmentProgressListener listener) {
+        String[] distinctTranslations = new String[plan.getDistinctTexts().size()];
+        return groupTranslations(plan, distinctTranslations, targetLang, sourceLang, options, listener)
+                .flatMap(group -> group, maxInFlightRequests)
+                .then()
+                // Fan the translations back out to every position
+                .then(Mono.fromSupplier(() -> plan.fanOut(distinctTranslations)));
+    }
 
-        // Preservar formato
-        if (options.isPreserveFormatting()) {
-            formData.add("preserve_formatting", "1");
+    /**
+     * Looks up deduplicated segments in the translation memory and prepares
+     * the DeepL calls of the remaining ones. The calls are not started, so
+     * callers decide how many of them run at once, even across languages.
+     *
+     * @param plan                 Distinct segments of the texts to translate
+     * @param distinctTranslations Array filled with the translation of each
+     *                             distinct segment
+     * @param targetLang           Target language code
+     * @param sourceLang           Source language code (null for automatic
+     *                             detection)
+     * @param options              Translation options
+     * @param listener             Optional progress listener
+     * @return One deferred call per group of segments sent to DeepL
+     */
+    private Flux<Mono<Void>> groupTranslations(SegmentPlan plan, String[] distinctTranslations, String targetLang,
+            String sourceLang, TranslationOptions options, SegmentProgressListener listener) {
+        List<String> distinctTexts = plan.getDistinctTexts();
+        int savedChars = plan.getSavedChars();
+        if (savedChars > 0) {
+            logger.debug("Deduplicated {} segments into {} distinct ones, saving {} characters", plan.size(),
+                    distinctTexts.size(), savedChars);
+            meterRegistry.counter("translation.dedup.saved.characters").increment(savedChars);
         }
-
-        // Control de división de oraciones
-        formData.add("split_sentences", options.isSplitSentences() ? "1" : "0");
-
-        logger.debug("Enviando solicitud a DeepL con opciones avanzadas: {}", options);
-
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(formData, headers);
-        String url = apiUrl + "/translate";
-
-        // Using raw type with suppressed warnings
-        @SuppressWarnings("rawtypes")
-        ResponseEntity<Map> response = restTemplate.postForEntity(url, request, Map.class);
-
-        if (!response.getStatusCode().is2xxSuccessful()) {
-            throw new RuntimeException("Error from DeepL API: " + response.getStatusCode());
+        if (listener != null) {
+            listener.onDuplicatesRemoved(savedChars);
         }
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> responseBody = (Map<String, Object>) response.getBody();
-        if (responseBody == null) {
-            throw new RuntimeException("Empty response from DeepL server");
-        }
+        // The translation memory is backed by blocking MongoDB calls
+        return Mono.fromCallable(() -> segmentTranslationCache.lookup(distinctTexts, targetLang, sourceLang, options))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(cachedTexts -> {
+                    List<Integer> missingIndexes = new ArrayList<>(distinctTexts.size() - cachedTexts.size());
+                    int cachedChars = 0;
+                    for (int i = 0; i < distinctTexts.size(); i++) {
+                        String cached = cachedTexts.get(i);
+                        if (cached != null) {
+                            distinctTranslations[i] = cached;
+                            cachedChars += distinctTexts.get(i).length() * plan.getOccurrences(i);
+                        } else {
+                            missingIndexes.add(i);
+                        }
+                    }
+                    if (listener != null && cachedChars > 0) {
+                        listener.onCharsTranslated(cachedChars);
+                    }
 
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> translations = (List<Map<String, Object>>) responseBody.get("translations");
+                    // Each group writes only its own positions of the result array
+                    List<List<Integer>> groups = groupSizingPolicy.group(missingIndexes, distinctTexts::get);
+                    return Flux.fromIterable(groups)
+                            .map(group -> Mono.defer(() -> translateGroup(group, plan, distinctTranslations,
+                                    targetLang, sourceLang, options, listener)));
+                });
+    }
 
-        if (translations == null || translations.isEmpty()) {
-            throw new RuntimeException("No translations received");
+    /**
+     * Translates one group of distinct segments in a single DeepL request and
+     * stores the results in the translation memory
+     */
+    private Mono<Void> translateGroup(List<Integer> group, SegmentPlan plan, String[] distinctTranslations,
+            String targetLang, String sourceLang, TranslationOptions options, SegmentProgressListener listener) {
+        List<String> groupTexts = new ArrayList<>(group.size());
+        int groupChars = 0;
+        for (Integer index : group) {
+            String text = plan.getDistinctTexts().get(index);
+            groupTexts.add(text);
+            // Progress counts every occurrence the translation fans out to
+            groupChars += text.length() * plan.getOccurrences(index);
         }
-
-        return (String) translations.get(0).get("text");
+        int completedChars = groupChars;
+
+        // The sizing policy already keeps each group within the request limits
+        return deeplClient.translate(groupTexts, targetLang, sourceLang, options)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(groupTranslations -> {
+                    segmentTranslationCache.store(groupTexts, groupTranslations, targetLang, sourceLang, options);
+                    for (int i = 0; i < group.size(); i++) {
+                        distinctTranslations[group.get(i)] = groupTranslations.get(i);
+                    }
+                    if (listener != null) {
+                        listener.onCharsTranslated(completedChars);
+                    }
+                })
+                .then();
     }
 
     /**
@@ -166,14 +253,22 @@ public class TranslationService {
      * @return Translated text
      */
     public String translateText(String text, String targetLang, String sourceLang) {
+        return translateText(text, targetLang, sourceLang, defaultOptions());
+    }
+
+    /**
+     * Builds the translation options configured in the application properties
+     *
+     * @return Default translation options
+     */
+    private TranslationOptions defaultOptions() {
         TranslationOptions options = new TranslationOptions();
         options.setFormality(deeplProperties.getTranslation().getFormality());
         options.setTagHandlingEnabled(deeplProperties.getTranslation().isTagHandlingEnabled());
         options.setGlossaryId(deeplProperties.getTranslation().getGlossaryId());
         options.setPreserveFormatting(deeplProperties.getTranslation().isPreserveFormatting());
         options.setSplitSentences(deeplProperties.getTranslation().isSplitSentences());
-
-        return translateText(text, targetLang, sourceLang, options);
+        return options;
     }
 
     /**
@@ -210,102 +305,162 @@ public class TranslationService {
             String sourceLang,
             String sessionId,
             ProgressTrackingService progressService) {
-        // Calculate total characters for progress tracking
-        int totalChars = 0;
-        for (SubtitleBlock subtitle : subtitles) {
-            String text = String.join("\n", subtitle.getText());
-            totalChars += text.length();
-        }
-
-        // Update progress tracking with total characters
-        progressService.setTotalChars(sessionId, totalChars);
+        return translateSubtitlesAsync(subtitles, targetLang, sourceLang, sessionId, progressService).block();
+    }
 
-        progressService.updateProgress(sessionId, "preparing",
-                "Preparing content for translation...", 0);
+    /**
+     * Translates a list of subtitle blocks with progress tracking without
+     * blocking the calling thread
+     * 
+     * @param subtitles       List of subtitle blocks
+     * @param targetLang      Target language code
+     * @param sourceLang      Source language code (can be "auto" for automatic
+     *                        detection)
+     * @param sessionId       Session ID for progress tracking
+     * @param progressService Progress tracking service
+     * @return List of translated subtitle blocks with confidence scores
+     */
+    public Mono<List<SubtitleBlock>> translateSubtitlesAsync(
+            List<SubtitleBlock> subtitles,
+            String targetLang,
+            String sourceLang,
+            String sessionId,
+            ProgressTrackingService progressService) {
+        List<String> originalTexts = joinBlockTexts(subtitles);
+        return translateWithProgress(originalTexts, List.of(targetLang), sourceLang, sessionId, progressService)
+                .map(translatedTexts -> createTranslatedBlocks(subtitles, originalTexts,
+                        translatedTexts.get(targetLang)));
+    }
 
-        // Save original texts to calculate confidence later
-        List<String> originalTexts = new ArrayList<>();
-        for (SubtitleBlock subtitle : subtitles) {
-            originalTexts.add(String.join("\n", subtitle.getText()));
-        }
+    /**
+     * Translates a parsed document with progress tracking, reusing the block
+     * texts and character counts computed when it was parsed. The result is
+     * built directly in compact form.
+     *
+     * @param document        Parsed subtitle document
+     * @param targetLang      Target language code
+     * @param sourceLang      Source language code (null for automatic detection)
+     * @param sessionId       Session ID for progress tracking
+     * @param progressService Progress tracking service
+     * @return Translated subtitles with confidence scores
+     */
+    public CompactSubtitleDocument translateDocumentWithProgress(
+            ParsedSubtitleDocument document,
+            String targetLang,
+            String sourceLang,
+            String sessionId,
+            ProgressTrackingService progressService) {
+        return translateDocumentToLanguages(document, List.of(targetLang), sourceLang, sessionId, progressService)
+                .get(targetLang);
+    }
 
-        // Group subtitles to minimize API calls
-        List<List<SubtitleBlock>> groups = new ArrayList<>();
+    /**
+     * Translates a parsed document into several languages. The segments are
+     * deduplicated once and every language is translated in parallel from
+     * the same plan; the session reports the progress of all of them.
+     *
+     * @param document        Parsed subtitle document
+     * @param targetLangs     Target language codes
+     * @param sourceLang      Source language code (null for automatic detection)
+     * @param sessionId       Session ID for progress tracking
+     * @param progressService Progress tracking service
+     * @return Translated subtitles with confidence scores, by target language
+     *         in the order of targetLangs
+     */
+    public Map<String, CompactSubtitleDocument> translateDocumentToLanguages(
+            ParsedSubtitleDocument document,
+            List<String> targetLangs,
+            String sourceLang,
+            String sessionId,
+            ProgressTrackingService progressService) {
+        CompactSubtitleDocument subtitles = document.getSubtitles();
+        Map<String, List<String>> translatedTexts = translateWithProgress(document.getSegmentTexts(), targetLangs,
+                sourceLang, sessionId, progressService).block();
 
-        for (int i = 0; i < subtitles.size(); i += GROUP_SIZE) {
-            groups.add(subtitles.subList(
-                    i,
-                    Math.min(i + GROUP_SIZE, subtitles.size())));
+        Map<String, CompactSubtitleDocument> translatedDocuments = new LinkedHashMap<>();
+        for (String targetLang : targetLangs) {
+            translatedDocuments.put(targetLang, createTranslatedDocument(subtitles, translatedTexts.get(targetLang)));
         }
+        return translatedDocuments;
+    }
 
-        // Translate using our improved approach that preserves structure
-        List<SubtitleBlock> translatedSubtitles = new ArrayList<>();
-        int translatedChars = 0;
-        int groupIndex = 0;
-
-        for (List<SubtitleBlock> group : groups) {
-            // Update progress tracker
-            int groupTotalChars = 0;
-            for (SubtitleBlock subtitle : group) {
-                groupTotalChars += String.join("\n", subtitle.getText()).length();
-            }
-
-            progressService.updateProgress(sessionId,
-                    "translating",
-                    String.format("Translating block %d of %d...", groupIndex + 1,
-                            groups.size()),
-                    translatedChars);
-
-            // Prepare text with special markers for structure preservation
-            StringBuilder textWithMarkers = new StringBuilder();
-
-            for (int i = 0; i < group.size(); i++) {
-                SubtitleBlock subtitle = group.get(i);
-
-                // Add subtitle identifier marker with ID
-                textWithMarkers.append("<SUBT:").append(subtitle.getId()).append(">\n");
-
-                // Add lines with markers to identify each line position
-                String[] lines = subtitle.getText();
-                for (int lineIndex = 0; lineIndex < lines.length; lineIndex++) {
-                    textWithMarkers.append("<LINE:").append(lineIndex + 1).append(">")
-                            .append(lines[lineIndex])
-                            .append("</LINE:").append(lineIndex + 1).append(">\n");
-                }
-
-                // Close subtitle marker
-                textWithMarkers.append("</SUBT:").append(subtitle.getId()).append(">");
-
-                // Add separator between subtitles, except the last one
-                if (i < group.size() - 1) {
-                    textWithMarkers.append("\n").append(SUBTITLE_SEPARATOR).append("\n");
-                }
-            }
-
-            // Translate the marked text
-            String translatedMarkedText = translateText(textWithMarkers.toString(),
-                    targetLang, sourceLang);
-            try {
-                Thread.sleep(1000); // Añadimos pausa para evitar error 429
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-
-            processTranslatedMarkedText(translatedMarkedText, group, translatedSubtitles,
-                    originalTexts);
+    private CompactSubtitleDocument createTranslatedDocument(CompactSubtitleDocument subtitles,
+            List<String> translatedTexts) {
+        CompactSubtitleDocument.Builder translated = CompactSubtitleDocument.builder(subtitles.size());
+        for (int i = 0; i < subtitles.size(); i++) {
+            List<String> translatedLines = translatedLines(translatedTexts.get(i), subtitles.getLineCount(i));
+            translated.addFrom(subtitles, i, translatedLines,
+                    ConfidenceCalculator.calculateConfidence(subtitles.getText(i),
+                            String.join("\n", translatedLines)));
+        }
+        return translated.build();
+    }
 
-            // Update translated character count for progress
-            translatedChars += groupTotalChars;
-            groupIndex++;
+    /**
+     * Translates block texts into one or more languages, reporting the
+     * combined progress for the session
+     *
+     * @return Translated texts by target language, each in the same order as
+     *         the input
+     */
+    private Mono<Map<String, List<String>>> translateWithProgress(
+            List<String> originalTexts,
+            List<String> targetLangs,
+            String sourceLang,
+            String sessionId,
+            ProgressTrackingService progressService) {
+        // Calculate total characters for progress tracking
+        int textChars = 0;
+        for (String text : originalTexts) {
+            textChars += text.length();
         }
+        // Each language translates every character
+        int totalChars = textChars * targetLangs.size();
 
-        // Sort subtitles by ID to maintain original order
-        translatedSubtitles.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        // Update progress tracking with total characters
+        progressService.setTotalChars(sessionId, totalChars);
 
-        // Final progress update
-        progressService.updateProgress(sessionId, "finalizing", "Finalizing translation...", totalChars);
+        progressService.updateProgress(sessionId, "preparing",
+                "Preparing content for translation...", 0);
 
-        return translatedSubtitles;
+        // Deduplication is shared by all the languages
+        SegmentPlan plan = SegmentPlan.of(originalTexts);
+        progressService.setSavedChars(sessionId, plan.getSavedChars() * targetLangs.size());
+
+        // Segments complete out of order, so progress is accumulated atomically
+        AtomicInteger translatedChars = new AtomicInteger();
+        Object progressLock = new Object();
+        int finalTotalChars = totalChars;
+        SegmentProgressListener listener = chars -> {
+            synchronized (progressLock) {
+                int completedChars = translatedChars.addAndGet(chars);
+                progressService.updateProgress(sessionId,
+                        "translating",
+                        String.format("Translated %d of %d characters...", completedChars, finalTotalChars),
+                        completedChars);
+            }
+        };
+        TranslationOptions options = defaultOptions();
+
+        // The groups of every language share one limit of DeepL requests in
+        // flight, so a job keeps the same bound whatever its number of languages
+        Map<String, String[]> distinctTranslations = new LinkedHashMap<>();
+        return Flux.fromIterable(targetLangs)
+                .concatMap(targetLang -> {
+                    String[] translations = new String[plan.getDistinctTexts().size()];
+                    distinctTranslations.put(targetLang, translations);
+                    return groupTranslations(plan, translations, targetLang, sourceLang, options, listener);
+                })
+                .flatMap(group -> group, maxInFlightRequests)
+                .then(Mono.fromSupplier(() -> {
+                    Map<String, List<String>> translatedTexts = new LinkedHashMap<>();
+                    distinctTranslations.forEach(
+                            (targetLang, translations) -> translatedTexts.put(targetLang, plan.fanOut(translations)));
+                    return translatedTexts;
+                }))
+                // Final progress update
+                .doOnSuccess(translatedTexts -> progressService.updateProgress(sessionId, "finalizing",
+                        "Finalizing translation...", finalTotalChars));
     }
 
     /**
@@ -318,145 +473,93 @@ public class TranslationService {
      * @return List of translated subtitle blocks with confidence scores
      */
     public List<SubtitleBlock> translateSubtitles(List<SubtitleBlock> subtitles, String targetLang, String sourceLang) {
-        // Mejorado: Preservar mejor la estructura del texto usando marcadores
-        // especiales para cada línea
-
-        // Group subtitles to minimize API calls
-        List<List<SubtitleBlock>> groups = new ArrayList<>();
-        for (int i = 0; i < subtitles.size(); i += GROUP_SIZE) {
-            groups.add(subtitles.subList(
-                    i,
-                    Math.min(i + GROUP_SIZE, subtitles.size())));
-        }
-
-        // Save original texts to calculate confidence later
-        List<String> originalTexts = new ArrayList<>();
-        for (SubtitleBlock subtitle : subtitles) {
-            originalTexts.add(String.join("\n", subtitle.getText()));
-        }
-
-        // Translate each group with structure preservation
-        List<SubtitleBlock> translatedSubtitles = new ArrayList<>();
-
-        for (List<SubtitleBlock> group : groups) {
-            // Prepare text with special markers for structure preservation
-            StringBuilder textWithMarkers = new StringBuilder();
-
-            for (int i = 0; i < group.size(); i++) {
-                SubtitleBlock subtitle = group.get(i);
-
-                // Add subtitle identifier marker with ID
-                textWithMarkers.append("<SUBT:").append(subtitle.getId()).append(">\n");
-
-                // Add lines with markers to identify each line position
-                String[] lines = subtitle.getText();
-                for (int lineIndex = 0; lineIndex < lines.length; lineIndex++) {
-                    textWithMarkers.append("<LINE:").append(lineIndex + 1).append(">")
-                            .append(lines[lineIndex])
-                            .append("</LINE:").append(lineIndex + 1).append(">\n");
-                }
-
-                // Close subtitle marker
-                textWithMarkers.append("</SUBT:").append(subtitle.getId()).append(">");
-
-                // Add separator between subtitles, except the last one
-                if (i < group.size() - 1) {
-                    textWithMarkers.append("\n").append(SUBTITLE_SEPARATOR).append("\n");
-                }
-            }
+        return translateBlocks(subtitles, joinBlockTexts(subtitles), targetLang, sourceLang, null).block();
+    }
 
-            // Translate the marked text
-            String translatedMarkedText = translateText(textWithMarkers.toString(), targetLang, sourceLang);
-            try {
-                Thread.sleep(1000); // Añadimos pausa para evitar error 429
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+    /**
+     * Translates each subtitle block as one segment and builds the translated
+     * blocks in the original order
+     *
+     * @param subtitles     List of subtitle blocks
+     * @param originalTexts Text of each block, lines joined with "\n"
+     * @param targetLang    Target language code
+     * @param sourceLang    Source language code
+     * @param listener      Optional progress listener
+     * @return Translated subtitle blocks with confidence scores
+     */
+    private Mono<List<SubtitleBlock>> translateBlocks(List<SubtitleBlock> subtitles, List<String> originalTexts,
+            String targetLang, String sourceLang, SegmentProgressListener listener) {
+        // Original texts are sent as they are and kept to calculate confidence
+        return translateSegments(originalTexts, targetLang, sourceLang, defaultOptions(), listener)
+                .map(translatedTexts -> createTranslatedBlocks(subtitles, originalTexts, translatedTexts));
+    }
 
-            processTranslatedMarkedText(translatedMarkedText, group, translatedSubtitles, originalTexts);
+    private List<SubtitleBlock> createTranslatedBlocks(List<SubtitleBlock> subtitles, List<String> originalTexts,
+            List<String> translatedTexts) {
+        List<SubtitleBlock> translatedSubtitles = new ArrayList<>(subtitles.size());
+        for (int i = 0; i < subtitles.size(); i++) {
+            translatedSubtitles.add(createTranslatedBlock(subtitles.get(i), originalTexts.get(i),
+                    translatedTexts.get(i)));
         }
+        return translatedSubtitles;
+    }
 
-        // Sort subtitles by ID to maintain original order
-        translatedSubtitles.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+    private static List<String> joinBlockTexts(List<SubtitleBlock> subtitles) {
+        List<String> texts = new ArrayList<>(subtitles.size());
+        for (SubtitleBlock subtitle : subtitles) {
+            texts.add(String.join("\n", subtitle.getText()));
+        }
+        return texts;
+    }
 
-        return translatedSubtitles;
+    /**
+     * Creates the translated subtitle block, keeping the original ID and time
+     * code and calculating the translation confidence
+     *
+     * @param originalSubtitle Original subtitle block
+     * @param originalText     Original text of the block (lines joined by \n)
+     * @param translatedText   Translated text returned by DeepL
+     * @return Translated subtitle block
+     */
+    private SubtitleBlock createTranslatedBlock(SubtitleBlock originalSubtitle, String originalText,
+            String translatedText) {
+        List<String> translatedLines = translatedLines(translatedText, originalSubtitle.getText().length);
+
+        double confidenceScore = ConfidenceCalculator.calculateConfidence(originalText,
+                String.join("\n", translatedLines));
+
+        return new SubtitleBlock(
+                originalSubtitle.getId(),
+                originalSubtitle.getTimeCode(),
+                translatedLines.toArray(new String[0]),
+                confidenceScore);
     }
 
     /**
-     * Process translated text with markers and extract structured subtitles
+     * Splits a translated segment into subtitle lines, restoring protected
+     * tags and dropping empty lines
      *
-     * @param translatedText      The translated text with structure markers
-     * @param originalGroup       The original subtitle blocks for reference
-     * @param translatedSubtitles List to add the translated subtitles to
-     * @param originalTexts       List of original texts for confidence calculation
+     * @param translatedText    Translated text returned by DeepL
+     * @param originalLineCount Number of lines of the original block
+     * @return Translated lines; empty lines in the original structure if the
+     *         translation is empty
      */
-    private void processTranslatedMarkedText(String translatedText, List<SubtitleBlock> originalGroup,
-            List<SubtitleBlock> translatedSubtitles, List<String> originalTexts) {
-        // Separate by subtitle markers
-        String[] subtitleBlocks = translatedText.split(SUBTITLE_SEPARATOR);
-        for (String block : subtitleBlocks) {
-            // Extract subtitle ID
-            java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile("<SUBT:(\\d+)>");
-            java.util.regex.Matcher idMatcher = idPattern.matcher(block);
-            if (idMatcher.find()) {
-                int id = Integer.parseInt(idMatcher.group(1));
-                // Find original subtitle for this ID
-                SubtitleBlock originalSubtitle = originalGroup.stream()
-                        .filter(s -> s.getId() == id)
-                        .findFirst()
-                        .orElse(null);
-                if (originalSubtitle != null) {
-                    // Extract lines with markers
-                    java.util.regex.Pattern linePattern = java.util.regex.Pattern
-                            .compile("<LINE:\\d+>(.*?)</LINE:\\d+>");
-                    java.util.regex.Matcher lineMatcher = linePattern.matcher(block);
-                    List<String> translatedLines = new ArrayList<>();
-                    while (lineMatcher.find()) {
-                        // Restore any protected tags in the translated text
-                        String translatedLine = restoreProtectedTags(lineMatcher.group(1).trim());
-                        translatedLines.add(translatedLine);
-                    }
-                    // If no lines were found with markers, extract text between SUBT tags
-                    if (translatedLines.isEmpty()) {
-                        String extractedText = block.replaceAll("<SUBT:\\d+>\\s*", "")
-                                .replaceAll("\\s*</SUBT:\\d+>", "")
-                                .trim();
-                        if (!extractedText.isEmpty()) {
-                            translatedLines = List.of(extractedText.split("\n"));
-                        } else {
-                            // Fallback to original structure but with empty text
-                            translatedLines = new ArrayList<>();
-                            for (int i = 0; i < originalSubtitle.getText().length; i++) {
-                                translatedLines.add("");
-                            }
-                        }
-                    }
-                    // Convert list to array
-                    String[] translatedLineArray = translatedLines.toArray(new String[0]);
-                    // Find the original text for confidence calculation
-                    int originalIndex = -1;
-                    for (int i = 0; i < originalGroup.size(); i++) {
-                        if (originalGroup.get(i).getId() == id) {
-                            originalIndex = i;
-                            break;
-                        }
-                    }
-                    String originalText = originalIndex >= 0 ? originalTexts.get(originalIndex)
-                            : String.join("\n", originalSubtitle.getText());
-                    String joinedTranslatedText = String.join("\n", translatedLines);
-                    // Calculate confidence
-                    double confidenceScore = ConfidenceCalculator.calculateConfidence(originalText,
-                            joinedTranslatedText);
-                    // Create translated subtitle block with original time code
-                    SubtitleBlock translatedSubtitle = new SubtitleBlock(
-                            id,
-                            originalSubtitle.getTimeCode(),
-                            translatedLineArray,
-                            confidenceScore);
-                    translatedSubtitles.add(translatedSubtitle);
-                }
+    private List<String> translatedLines(String translatedText, int originalLineCount) {
+        List<String> translatedLines = new ArrayList<>();
+        for (String line : translatedText.split("\n")) {
+            // Restore any protected tags in the translated text
+            String translatedLine = restoreProtectedTags(line.trim());
+            if (!translatedLine.isEmpty()) {
+                translatedLines.add(translatedLine);
+            }
+        }
+        if (translatedLines.isEmpty()) {
+            // Fallback to original structure but with empty text
+            for (int i = 0; i < originalLineCount; i++) {
+                translatedLines.add("");
             }
         }
+        return translatedLines;
     }
 
     /**
@@ -509,6 +612,29 @@ public class TranslationService {
         }
     }
 
+    /**
+     * Detects the language of parsed subtitles, using only their text
+     *
+     * @param subtitles Parsed subtitles
+     * @return Detected language and confidence
+     */
+    public LanguageDetectionResponse detectLanguage(CompactSubtitleDocument subtitles) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < subtitles.size(); i++) {
+            for (int line = 0; line < subtitles.getLineCount(i); line++) {
+                text.append(subtitles.getLine(i, line)).append(' ');
+            }
+        }
+        Optional<com.optimaize.langdetect.DetectedLanguage> best = languageDetector.getProbabilities(text).stream()
+                .findFirst();
+        if (best.isPresent()) {
+            com.optimaize.langdetect.DetectedLanguage detected = best.get();
+            return new LanguageDetectionResponse(true, detected.getLocale().getLanguage(), detected.getProbability());
+        } else {
+            return new LanguageDetectionResponse(false, "Could not detect language");
+        }
+    }
+
     /**
      * Fetches available DeepL glossaries for the configured account
      * 
@@ -516,27 +642,12 @@ public class TranslationService {
      *         target_lang)
      */
     public List<Map<String, Object>> listAvailableGlossaries() {
-        String url = apiUrl + "/glossaries";
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "DeepL-Auth-Key " + apiKey);
-        HttpEntity<Void> request = new HttpEntity<>(headers);
         try {
-            @SuppressWarnings("rawtypes")
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, request, Map.class);
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                throw new RuntimeException("Error from DeepL API: " + response.getStatusCode());
-            }
-            @SuppressWarnings("unchecked")
-            Map<String, Object> responseBody = (Map<String, Object>) response.getBody();
-            if (responseBody == null || !responseBody.containsKey("glossaries")) {
-                return List.of();
-            }
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> glossaries = (List<Map<String, Object>>) responseBody.get("glossaries");
-            return glossaries;
+            List<Map<String, Object>> glossaries = deeplClient.listGlossaries().block();
+            return glossaries != null ? glossaries : List.of();
         } catch (Exception e) {
             logger.error("Error fetching DeepL glossaries", e);
             return List.of();
         }
     }
-}
\ No newline at end of file
+}
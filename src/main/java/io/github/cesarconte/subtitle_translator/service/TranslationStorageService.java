@@ -1,12 +1,24 @@
 package io.github.cesarconte.subtitle_translator.service;
 
 import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.model.TranslationSummary;
 import io.github.cesarconte.subtitle_translator.repository.TranslationRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Servicio para gestionar las traducciones almacenadas en MongoDB.
@@ -15,13 +27,21 @@ import java.util.Optional;
 public class TranslationStorageService {
 
     private final TranslationRepository translationRepository;
+    private final MongoTemplate mongoTemplate;
+    private final SubtitleContentStore contentStore;
+    private final TranslationAccessTracker accessTracker;
+    private final TranslationKeyFilter keyFilter;
 
-    public TranslationStorageService(TranslationRepository translationRepository) {
+    public TranslationStorageService(TranslationRepository translationRepository, MongoTemplate mongoTemplate,
+            SubtitleContentStore contentStore, TranslationAccessTracker accessTracker,
+            TranslationKeyFilter keyFilter) {
         this.translationRepository = translationRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.contentStore = contentStore;
+        this.accessTracker = accessTracker;
+        this.keyFilter = keyFilter;
     }
 
-    
-
     /**
      * Busca una traducción existente en la base de datos.
      *
@@ -31,16 +51,32 @@ public class TranslationStorageService {
      * @return Un Optional con la traducción si existe, o vacío si no existe
      */
     public Optional<Translation> findExistingTranslation(String content, String sourceLanguage, String targetLanguage) {
-        String contentHash = generateContentHash(content);
+        return findExistingTranslationByHash(generateContentHash(content), sourceLanguage, targetLanguage);
+    }
+
+    /**
+     * Busca una traducción existente a partir del hash ya calculado del
+     * contenido.
+     *
+     * @param contentHash    Hash MD5 del contenido original
+     * @param sourceLanguage Idioma de origen
+     * @param targetLanguage Idioma destino
+     * @return Un Optional con la traducción si existe, o vacío si no existe
+     */
+    public Optional<Translation> findExistingTranslationByHash(String contentHash, String sourceLanguage,
+            String targetLanguage) {
+        // Si el filtro no conoce la clave, la traducción no existe: no se consulta MongoDB
+        if (!keyFilter.mightContain(contentHash, sourceLanguage, targetLanguage)) {
+            return Optional.empty();
+        }
+
         Optional<Translation> existingTranslation = translationRepository
                 .findByContentHashAndSourceLanguageAndTargetLanguage(
                         contentHash, sourceLanguage, targetLanguage);
 
-        // Si encontramos una traducción, actualizamos su fecha de acceso y contador
-        existingTranslation.ifPresent(translation -> {
-            translation.updateAccess();
-            translationRepository.save(translation);
-        });
+        // Si encontramos una traducción, registramos el acceso; la fecha y el
+        // contador se escriben más tarde en lote, sin reescribir el documento
+        existingTranslation.ifPresent(translation -> accessTracker.recordAccess(translation.getId()));
 
         return existingTranslation;
     }
@@ -67,38 +103,175 @@ public class TranslationStorageService {
             String confidenceData,
             Double averageConfidence,
             String confidenceLevel) {
+        return saveTranslation(generateContentHash(originalContent), fileName, originalContent, sourceLanguage,
+                targetLanguage, translatedContent, confidenceData, averageConfidence, confidenceLevel);
+    }
+
+    /**
+     * Guarda una nueva traducción usando el hash ya calculado del contenido.
+     *
+     * Los contenidos se guardan comprimidos en subtitle_contents, cada uno con
+     * el hash de sus propios bytes; el original se comparte entre todos los
+     * pares de idiomas y solo se envía la primera vez. La traducción guarda
+     * únicamente las referencias. contentHash sigue siendo el hash del archivo
+     * subido, que es la clave de búsqueda de la traducción.
+     *
+     * Se hace en un único findAndModify con upsert: los campos traducidos se
+     * actualizan siempre y los inmutables (nombre, fecha de creación y tamaño)
+     * solo se escriben al insertar. Así no hay lectura previa y dos trabajos
+     * concurrentes no compiten por el índice único.
+     *
+     * @param contentHash Hash MD5 del contenido original
+     * @return La traducción guardada, sin los contenidos original, traducido ni
+     *         los datos de confianza
+     * @see #saveTranslation(String, String, String, String, String, String, Double, String)
+     */
+    public Translation saveTranslation(
+            String contentHash,
+            String fileName,
+            String originalContent,
+            String sourceLanguage,
+            String targetLanguage,
+            String translatedContent,
+            String confidenceData,
+            Double averageConfidence,
+            String confidenceLevel) {
 
-        String contentHash = generateContentHash(originalContent);
+        // Los contenidos que faltan se escriben juntos, en un único viaje
+        String[] contentHashes = contentStore.storeAll(originalContent, translatedContent);
 
-        // Comprobar si ya existe la traducción
-        Optional<Translation> existingTranslation = translationRepository
-                .findByContentHashAndSourceLanguageAndTargetLanguage(
-                        contentHash, sourceLanguage, targetLanguage);
+        // Los campos de la clave se copian del filtro al insertar
+        Query query = Query.query(Criteria.where("contentHash").is(contentHash)
+                .and("sourceLanguage").is(sourceLanguage)
+                .and("targetLanguage").is(targetLanguage));
+        // No devolvemos los contenidos, que ya tiene quien llama
+        query.fields().exclude("originalContent", "translatedContent", "confidenceData");
 
-        if (existingTranslation.isPresent()) {
-            // Actualizar la traducción existente
-            Translation translation = existingTranslation.get();
-            translation.setTranslatedContent(translatedContent);
-            translation.setConfidenceData(confidenceData);
-            translation.setAverageConfidence(averageConfidence);
-            translation.setConfidenceLevel(confidenceLevel);
-            translation.updateAccess();
-            return translationRepository.save(translation);
-        } else {
-            // Crear una nueva traducción
-            Translation translation = new Translation();
-            translation.setFileName(fileName);
-            translation.setContentHash(contentHash);
-            translation.setOriginalContent(originalContent);
-            translation.setSourceLanguage(sourceLanguage);
-            translation.setTargetLanguage(targetLanguage);
-            translation.setTranslatedContent(translatedContent);
-            translation.setConfidenceData(confidenceData);
-            translation.setAverageConfidence(averageConfidence);
-            translation.setConfidenceLevel(confidenceLevel);
-            translation.setFileSize((long) originalContent.getBytes(StandardCharsets.UTF_8).length);
-            return translationRepository.save(translation);
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("originalContentHash", contentHashes[0])
+                .set("translatedContentHash", contentHashes[1])
+                .set("confidenceData", confidenceData)
+                .set("averageConfidence", averageConfidence)
+                .set("confidenceLevel", confidenceLevel)
+                .set("lastAccessedAt", now)
+                .inc("accessCount", 1)
+                // Los contenidos en línea de documentos antiguos dejan de usarse
+                .unset("translatedContent")
+                .unset("originalContent")
+                .setOnInsert("fileName", fileName)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("fileSize", (long) originalContent.getBytes(StandardCharsets.UTF_8).length);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+        Translation saved;
+        try {
+            saved = mongoTemplate.findAndModify(query, update, options, Translation.class);
+        } catch (DuplicateKeyException e) {
+            // Otro upsert insertó el documento a la vez: ahora existe y se actualiza
+            saved = mongoTemplate.findAndModify(query, update, options, Translation.class);
         }
+        keyFilter.put(contentHash, sourceLanguage, targetLanguage);
+        return saved;
+    }
+
+    /**
+     * Lista el historial de traducciones por fecha de último acceso, de la más
+     * reciente a la más antigua, con paginación por cursor.
+     *
+     * La página siguiente empieza tras la última traducción de la anterior
+     * (lastAccessedAt, _id), así que no hay consulta de conteo ni se recorren
+     * las páginas previas; el índice idx_last_accessed_id resuelve el filtro y
+     * el orden.
+     *
+     * @param afterAccess Fecha de último acceso de la última traducción ya
+     *                    listada, o null para la primera página
+     * @param afterId     ID de la última traducción ya listada
+     * @param limit       Número máximo de traducciones
+     * @return Resúmenes de las traducciones, sin contenidos
+     */
+    public List<TranslationSummary> findHistory(LocalDateTime afterAccess, String afterId, int limit) {
+        return mongoTemplate.query(Translation.class)
+                .as(TranslationSummary.class)
+                .matching(historyQuery(afterAccess, afterId, limit))
+                .all();
+    }
+
+    /**
+     * Consulta de una página del historial: las traducciones tras la posición
+     * dada en el orden (lastAccessedAt, _id) descendente. Con la misma fecha de
+     * acceso desempata el ID, así ninguna traducción se repite ni se salta.
+     *
+     * @param afterAccess Fecha de último acceso de la última traducción ya
+     *                    listada, o null para la primera página
+     * @param afterId     ID de la última traducción ya listada
+     * @param limit       Número máximo de traducciones
+     * @return La consulta
+     */
+    public static Query historyQuery(LocalDateTime afterAccess, String afterId, int limit) {
+        Query query = new Query();
+        if (afterAccess != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("lastAccessedAt").lt(afterAccess),
+                    Criteria.where("lastAccessedAt").is(afterAccess).and("_id").lt(afterId)));
+        }
+        return query.with(Sort.by(Sort.Order.desc("lastAccessedAt"), Sort.Order.desc("_id"))).limit(limit);
+    }
+
+    /**
+     * Obtiene el contenido original de una traducción, del almacén de
+     * contenidos o del campo en línea de los documentos antiguos.
+     *
+     * @param translation Traducción
+     * @return Contenido original, o null si no está disponible
+     */
+    public String getOriginalContent(Translation translation) {
+        if (translation.getOriginalContent() != null) {
+            return translation.getOriginalContent();
+        }
+        return contentStore.load(translation.getOriginalContentHash()).orElse(null);
+    }
+
+    /**
+     * Obtiene el contenido traducido de una traducción, del almacén de
+     * contenidos o del campo en línea de los documentos antiguos.
+     *
+     * @param translation Traducción
+     * @return Contenido traducido, o null si no está disponible
+     */
+    public String getTranslatedContent(Translation translation) {
+        if (translation.getTranslatedContent() != null) {
+            return translation.getTranslatedContent();
+        }
+        return contentStore.load(translation.getTranslatedContentHash()).orElse(null);
+    }
+
+    /**
+     * Elimina una traducción y los contenidos que solo ella referenciaba.
+     *
+     * Un contenido se comparte entre todas las traducciones del mismo original
+     * o con el mismo resultado, así que solo se borra cuando ninguna otra
+     * traducción lo referencia.
+     *
+     * @param id ID de la traducción
+     * @return true si la traducción existía y se eliminó
+     */
+    public boolean deleteTranslation(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("originalContentHash", "translatedContentHash");
+        Translation deleted = mongoTemplate.findAndRemove(query, Translation.class);
+        if (deleted == null) {
+            return false;
+        }
+
+        Stream.of(deleted.getOriginalContentHash(), deleted.getTranslatedContentHash())
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(hash -> !mongoTemplate.exists(Query.query(new Criteria().orOperator(
+                        Criteria.where("originalContentHash").is(hash),
+                        Criteria.where("translatedContentHash").is(hash))), Translation.class))
+                .forEach(contentStore::remove);
+        return true;
     }
 
     /**
@@ -107,7 +280,7 @@ public class TranslationStorageService {
      * @param content Contenido a hashear
      * @return Hash MD5 del contenido
      */
-    private String generateContentHash(String content) {
+    public String generateContentHash(String content) {
         return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -1,11 +1,25 @@
 package io.github.cesarconte.subtitle_translator.util;
 
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
 import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
 import org.springframework.stereotype.Component;
-
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * Utility to parse and manipulate SRT files
@@ -20,59 +34,141 @@ public class SrtParser {
      * @return List of subtitle blocks
      */
     public List<SubtitleBlock> parse(String content) {
+        return parse(new StringReader(content));
+    }
+
+    /**
+     * Parses SRT content from a reader and converts it into a list of
+     * subtitle blocks
+     *
+     * @param reader SRT content
+     * @return List of subtitle blocks
+     */
+    public List<SubtitleBlock> parse(Reader reader) {
         List<SubtitleBlock> subtitles = new ArrayList<>();
+        parse(reader, subtitles::add);
+        return subtitles;
+    }
 
-        // Normalize line breaks
-        String normalizedContent = content.replace("\r\n", "\n").replace("\r", "\n");
+    /**
+     * Parses SRT content block by block, handing each subtitle to the
+     * consumer as soon as it is read. Only one block is held in memory.
+     *
+     * @param reader   SRT content
+     * @param consumer Consumer of the subtitle blocks
+     */
+    public void parse(Reader reader, Consumer<SubtitleBlock> consumer) {
+        new SrtStreamReader(reader).forEachRemaining(consumer);
+    }
 
-        // Split into blocks (double line break)
-        String[] blocks = normalizedContent.split("\n\n");
+    /**
+     * Parses UTF-8 encoded SRT content block by block
+     *
+     * @param inputStream SRT content
+     * @param consumer    Consumer of the subtitle blocks
+     */
+    public void parse(InputStream inputStream, Consumer<SubtitleBlock> consumer) {
+        new SrtStreamReader(inputStream).forEachRemaining(consumer);
+    }
 
-        for (String block : blocks) {
-            if (block.trim().isEmpty()) {
-                continue;
-            }
+    /**
+     * Parses and validates an SRT file in a single pass
+     *
+     * @param content SRT file content
+     * @return The parsed document; blocks that cannot be parsed are skipped
+     *         and make the document invalid
+     */
+    public ParsedSubtitleDocument parseDocument(String content) {
+        if (content == null) {
+            return new ParsedSubtitleDocument(false, null, CompactSubtitleDocument.builder(0).build());
+        }
+
+        // Rough estimate of the block count for a typical SRT file
+        CompactSubtitleDocument.Builder subtitles = CompactSubtitleDocument.builder(content.length() / 60);
+        boolean valid = readDocument(new SrtStreamReader(new StringReader(content)), subtitles);
+
+        String contentHash = DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+        return new ParsedSubtitleDocument(valid, contentHash, subtitles.build());
+    }
+
+    /**
+     * Parses and validates UTF-8 encoded SRT content while it is read,
+     * hashing the bytes as they go through the parser. The content is never
+     * held in memory as a whole.
+     *
+     * @param inputStream SRT content; read to the end but not closed
+     * @return The parsed document, with the same hash as
+     *         {@link #parseDocument(String)} for the same content
+     */
+    public ParsedSubtitleDocument parseDocument(InputStream inputStream) {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
 
-            String[] lines = block.split("\n");
+        CompactSubtitleDocument.Builder subtitles = CompactSubtitleDocument.builder(0);
+        boolean valid = readDocument(new SrtStreamReader(new DigestInputStream(inputStream, md5)), subtitles);
 
-            if (lines.length < 3) {
+        return new ParsedSubtitleDocument(valid, HexFormat.of().formatHex(md5.digest()), subtitles.build());
+    }
+
+    /**
+     * Reads every block into a document builder
+     *
+     * @return true if the content has blocks and all of them are valid
+     */
+    private boolean readDocument(SrtStreamReader srtReader, CompactSubtitleDocument.Builder subtitles) {
+        boolean valid = true;
+        boolean hasBlocks = false;
+
+        List<String> lines;
+        List<String> textLines = new ArrayList<>();
+        while ((lines = srtReader.nextRawBlock()) != null) {
+            valid &= isValidBlock(lines);
+            if (lines.size() < 3) {
                 // Incomplete block, skip
                 continue;
             }
 
+            int id;
             try {
-                // Extract the ID
-                int id = Integer.parseInt(lines[0].trim());
-
-                // Extract the time code
-                String timeCode = lines[1].trim();
-
-                // Extract the text
-                String[] textLines = new String[lines.length - 2];
-                System.arraycopy(lines, 2, textLines, 0, lines.length - 2);
-
-                // Filter empty lines
-                List<String> filteredLines = new ArrayList<>();
-                for (String line : textLines) {
-                    if (!line.trim().isEmpty()) {
-                        filteredLines.add(line);
-                    }
-                }
-
-                SubtitleBlock subtitle = new SubtitleBlock(
-                        id,
-                        timeCode,
-                        filteredLines.toArray(new String[0]));
-
-                subtitles.add(subtitle);
-
+                id = Integer.parseInt(lines.get(0).trim());
             } catch (NumberFormatException e) {
                 // If the ID cannot be parsed, skip this block
                 continue;
             }
+
+            // Filter empty lines
+            textLines.clear();
+            for (int i = 2; i < lines.size(); i++) {
+                if (!lines.get(i).trim().isEmpty()) {
+                    textLines.add(lines.get(i));
+                }
+            }
+            subtitles.add(id, lines.get(1).trim(), textLines);
+            hasBlocks = true;
         }
 
-        return subtitles;
+        return valid && hasBlocks;
+    }
+
+    /**
+     * Converts compact subtitles to SRT format
+     *
+     * @param subtitles Subtitles to write
+     * @return SRT format content
+     */
+    public String generate(CompactSubtitleDocument subtitles) {
+        StringWriter output = new StringWriter(subtitles.size() * 64);
+        try {
+            new SrtWriter(output).writeAll(subtitles);
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return output.toString();
     }
 
     /**
@@ -117,60 +213,59 @@ public class SrtParser {
         if (content == null || content.trim().isEmpty()) {
             return false;
         }
+        return isValid(new StringReader(content));
+    }
 
-        // Normalize line breaks
-        String normalizedContent = content.replace("\r\n", "\n").replace("\r", "\n");
-
-        // Split into blocks
-        String[] blocks = normalizedContent.split("\n\n");
-
-        if (blocks.length == 0) {
-            return false;
-        }
-
-        // Pattern to validate the time code (00:00:00,000 --> 00:00:00,000)
-        Pattern timeCodePattern = Pattern.compile(
-                "\\d{2}:\\d{2}:\\d{2},\\d{3}\\s-->\\s\\d{2}:\\d{2}:\\d{2},\\d{3}");
+    /**
+     * Validates if the content read has a valid SRT format, reading one block
+     * at a time
+     *
+     * @param reader Content to validate
+     * @return true if valid, false otherwise
+     */
+    public boolean isValid(Reader reader) {
+        SrtStreamReader srtReader = new SrtStreamReader(reader);
+        boolean hasBlocks = false;
 
         // Verify each block
-        for (String block : blocks) {
-            if (block.trim().isEmpty()) {
-                continue;
-            }
-
-            String[] lines = block.split("\n");
-
-            if (lines.length < 3) {
+        List<String> lines;
+        while ((lines = srtReader.nextRawBlock()) != null) {
+            hasBlocks = true;
+            if (!isValidBlock(lines)) {
                 return false;
             }
+        }
 
-            try {
-                // Verify ID
-                Integer.parseInt(lines[0].trim());
+        return hasBlocks;
+    }
 
-                // Verify time code
-                if (!timeCodePattern.matcher(lines[1].trim()).matches()) {
-                    return false;
-                }
+    /**
+     * Validates the lines of one block: numeric ID, time code and at least
+     * one line of text
+     */
+    private boolean isValidBlock(List<String> lines) {
+        if (lines.size() < 3) {
+            return false;
+        }
 
-                // Verify that there is at least one line of text
-                boolean hasText = false;
-                for (int i = 2; i < lines.length; i++) {
-                    if (!lines[i].trim().isEmpty()) {
-                        hasText = true;
-                        break;
-                    }
-                }
+        try {
+            // Verify ID
+            Integer.parseInt(lines.get(0).trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
 
-                if (!hasText) {
-                    return false;
-                }
+        // Verify time code (00:00:00,000 --> 00:00:00,000)
+        if (!TimecodeParser.isValid(lines.get(1).trim())) {
+            return false;
+        }
 
-            } catch (NumberFormatException e) {
-                return false;
+        // Verify that there is at least one line of text
+        for (int i = 2; i < lines.size(); i++) {
+            if (!lines.get(i).trim().isEmpty()) {
+                return true;
             }
         }
-
-        return true;
+        return false;
     }
 }
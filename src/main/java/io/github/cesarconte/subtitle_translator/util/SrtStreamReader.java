@@ -0,0 +1,219 @@
+package io.github.cesarconte.subtitle_translator.util;
+
+import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads SRT content block by block.
+ *
+ * Only the block being parsed is kept in memory, so large files and
+ * concatenated inputs are read in constant memory. A block is capped in
+ * lines and characters; larger blocks, such as content without blank lines,
+ * are skipped without being held in memory. LF, CRLF and CR line endings are
+ * accepted, and a byte order mark at the start of a block is ignored.
+ */
+public class SrtStreamReader implements Iterator<SubtitleBlock>, Closeable {
+
+    private static final char BOM = '\uFEFF';
+    // Far above any real subtitle, which has an ID, a time code and a few lines of text
+    private static final int MAX_BLOCK_LINES = 100;
+    private static final int MAX_BLOCK_CHARS = 16 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int bufferPosition;
+    private int bufferLength;
+    private final StringBuilder line = new StringBuilder();
+    // Whether the last line read went over the characters left for its block
+    private boolean lineTooLong;
+    private SubtitleBlock nextBlock;
+    private boolean finished;
+
+    /**
+     * Creates a reader over character content
+     *
+     * @param reader SRT content
+     */
+    public SrtStreamReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Creates a reader over UTF-8 encoded content
+     *
+     * @param inputStream SRT content
+     */
+    public SrtStreamReader(InputStream inputStream) {
+        this(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextBlock == null && !finished) {
+            List<String> lines = nextRawBlock();
+            if (lines == null) {
+                finished = true;
+            } else {
+                nextBlock = toSubtitleBlock(lines);
+            }
+        }
+        return nextBlock != null;
+    }
+
+    @Override
+    public SubtitleBlock next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SubtitleBlock block = nextBlock;
+        nextBlock = null;
+        return block;
+    }
+
+    /**
+     * Reads the lines of the next block, without interpreting them. Blocks
+     * are separated by one or more empty lines.
+     *
+     * @return Lines of the block, empty if the block went over the line or
+     *         character cap and was skipped, or null at the end of the content
+     */
+    List<String> nextRawBlock() {
+        try {
+            List<String> lines = new ArrayList<>();
+            int blockChars = 0;
+            String line;
+            while ((line = readLine(MAX_BLOCK_CHARS - blockChars)) != null) {
+                if (lineTooLong || (!line.isEmpty() && lines.size() == MAX_BLOCK_LINES)) {
+                    // Not a subtitle: the rest of the block is read without keeping it
+                    skipBlock();
+                    return List.of();
+                }
+                if (lines.isEmpty() && !line.isEmpty() && line.charAt(0) == BOM) {
+                    line = line.substring(1);
+                }
+                if (line.isEmpty()) {
+                    if (!lines.isEmpty()) {
+                        return lines;
+                    }
+                    continue;
+                }
+                lines.add(line);
+                blockChars += line.length();
+            }
+            return lines.isEmpty() ? null : lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading SRT content", e);
+        }
+    }
+
+    /**
+     * Reads up to the next empty line or the end of the content, keeping
+     * nothing
+     */
+    private void skipBlock() throws IOException {
+        String line;
+        while ((line = readLine(0)) != null) {
+            if (line.isEmpty() && !lineTooLong) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads one line, keeping at most maxChars characters of it. The rest of
+     * a longer line is read and dropped, and lineTooLong is set.
+     *
+     * @return The line without its terminator, or null at the end of the
+     *         content
+     */
+    private String readLine(int maxChars) throws IOException {
+        line.setLength(0);
+        lineTooLong = false;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n' && c != '\r') {
+            if (line.length() < maxChars) {
+                line.append((char) c);
+            } else {
+                lineTooLong = true;
+            }
+            c = read();
+        }
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        return line.toString();
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            bufferPosition++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (bufferPosition == bufferLength) {
+            int read;
+            do {
+                read = reader.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            if (read == -1) {
+                return -1;
+            }
+            bufferPosition = 0;
+            bufferLength = read;
+        }
+        return buffer[bufferPosition];
+    }
+
+    /**
+     * Converts the lines of a block into a subtitle
+     *
+     * @return The subtitle, or null if the block is incomplete or has no
+     *         numeric ID
+     */
+    static SubtitleBlock toSubtitleBlock(List<String> lines) {
+        if (lines.size() < 3) {
+            // Incomplete block, skip
+            return null;
+        }
+
+        int id;
+        try {
+            id = Integer.parseInt(lines.get(0).trim());
+        } catch (NumberFormatException e) {
+            // If the ID cannot be parsed, skip this block
+            return null;
+        }
+
+        // Extract the text, filtering empty lines
+        List<String> textLines = new ArrayList<>(lines.size() - 2);
+        for (int i = 2; i < lines.size(); i++) {
+            if (!lines.get(i).trim().isEmpty()) {
+                textLines.add(lines.get(i));
+            }
+        }
+
+        return new SubtitleBlock(id, lines.get(1).trim(), textLines.toArray(new String[0]));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
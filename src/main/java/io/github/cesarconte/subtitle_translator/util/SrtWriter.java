@@ -0,0 +1,120 @@
+package io.github.cesarconte.subtitle_translator.util;
+
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes subtitles in SRT format block by block.
+ *
+ * Blocks go straight to the underlying writer, so a document can be sent to
+ * an HTTP response or a file without building the whole output in memory.
+ * Blocks are separated by a blank line, with no blank line after the last
+ * one.
+ */
+public class SrtWriter implements Flushable, Closeable {
+
+    private final Writer writer;
+    // Reused for the time code of each block
+    private final StringBuilder timeCode = new StringBuilder(32);
+    private char[] timeCodeChars = new char[32];
+    private int blockCount;
+
+    /**
+     * Creates a writer over character output
+     *
+     * @param writer Destination
+     */
+    public SrtWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Creates a writer that encodes the output as UTF-8
+     *
+     * @param outputStream Destination
+     */
+    public SrtWriter(OutputStream outputStream) {
+        this(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes a subtitle block
+     *
+     * @param block Subtitle to write
+     * @throws IOException if the destination fails
+     */
+    public void write(SubtitleBlock block) throws IOException {
+        startBlock(block.getId());
+        writer.write(block.getTimeCode());
+        writer.write('\n');
+        for (String line : block.getText()) {
+            writer.write(line);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Writes one block of a document, copying its text without creating
+     * intermediate strings
+     *
+     * @param subtitles Document
+     * @param index     Position of the block in the document
+     * @throws IOException if the destination fails
+     */
+    public void write(CompactSubtitleDocument subtitles, int index) throws IOException {
+        startBlock(subtitles.getId(index));
+        timeCode.setLength(0);
+        subtitles.appendTimeCode(index, timeCode);
+        int length = timeCode.length();
+        if (length > timeCodeChars.length) {
+            timeCodeChars = new char[length];
+        }
+        timeCode.getChars(0, length, timeCodeChars, 0);
+        writer.write(timeCodeChars, 0, length);
+        writer.write('\n');
+        if (subtitles.getLineCount(index) > 0) {
+            subtitles.writeText(index, writer);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Writes every block of a document
+     *
+     * @param subtitles Document
+     * @throws IOException if the destination fails
+     */
+    public void writeAll(CompactSubtitleDocument subtitles) throws IOException {
+        for (int i = 0; i < subtitles.size(); i++) {
+            write(subtitles, i);
+        }
+    }
+
+    private void startBlock(int id) throws IOException {
+        // Blank line between subtitles (except after the last one)
+        if (blockCount++ > 0) {
+            writer.write('\n');
+        }
+        writer.write(Integer.toString(id));
+        writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.cesarconte.subtitle_translator.util;
 
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
 import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
 import java.util.ArrayList;
 import java.util.List;
@@ -43,4 +44,24 @@ public class SubtitleFormatValidator {
         }
         return violations;
     }
+
+    /**
+     * Valida la longitud de las líneas de unos subtítulos en forma compacta.
+     *
+     * @param subtitles       Subtítulos a validar
+     * @param maxCharsPerLine Máximo de caracteres por línea
+     * @return Lista de resultados con las líneas que exceden el límite
+     */
+    public static List<ValidationResult> validateLineLength(CompactSubtitleDocument subtitles, int maxCharsPerLine) {
+        List<ValidationResult> violations = new ArrayList<>();
+        for (int block = 0; block < subtitles.size(); block++) {
+            for (int i = 0; i < subtitles.getLineCount(block); i++) {
+                String line = subtitles.getLine(block, i);
+                if (line.length() > maxCharsPerLine) {
+                    violations.add(new ValidationResult(subtitles.getId(block), i + 1, line, line.length()));
+                }
+            }
+        }
+        return violations;
+    }
 }
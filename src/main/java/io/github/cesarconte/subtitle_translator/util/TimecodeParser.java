@@ -0,0 +1,135 @@
+package io.github.cesarconte.subtitle_translator.util;
+
+/**
+ * Parses and formats SRT time codes ("00:00:01,000 --> 00:00:04,000")
+ * without regular expressions or intermediate objects.
+ *
+ * Times are returned as milliseconds; -1 marks a value that could not be
+ * parsed.
+ */
+public final class TimecodeParser {
+
+    // "00:00:00,000"
+    private static final int TIME_LENGTH = 12;
+    // "00:00:00,000 --> 00:00:00,000"
+    private static final int TIME_CODE_LENGTH = 2 * TIME_LENGTH + 5;
+    private static final int END_OFFSET = TIME_LENGTH + 5;
+
+    private TimecodeParser() {
+    }
+
+    /**
+     * Checks that a time code has exactly the SRT format
+     *
+     * @param timeCode Time code, without surrounding whitespace
+     * @return true if valid
+     */
+    public static boolean isValid(CharSequence timeCode) {
+        return timeCode.length() == TIME_CODE_LENGTH
+                && Character.isWhitespace(timeCode.charAt(TIME_LENGTH))
+                && timeCode.charAt(TIME_LENGTH + 1) == '-'
+                && timeCode.charAt(TIME_LENGTH + 2) == '-'
+                && timeCode.charAt(TIME_LENGTH + 3) == '>'
+                && Character.isWhitespace(timeCode.charAt(TIME_LENGTH + 4))
+                && parseTime(timeCode, 0) >= 0
+                && parseTime(timeCode, END_OFFSET) >= 0;
+    }
+
+    /**
+     * Parses the start time of a time code
+     *
+     * @param timeCode Time code
+     * @return Start time in milliseconds, or -1 if the format differs
+     */
+    public static long parseStart(CharSequence timeCode) {
+        return isValid(timeCode) ? parseTime(timeCode, 0) : -1;
+    }
+
+    /**
+     * Parses the end time of a time code
+     *
+     * @param timeCode Time code
+     * @return End time in milliseconds, or -1 if the format differs
+     */
+    public static long parseEnd(CharSequence timeCode) {
+        return isValid(timeCode) ? parseTime(timeCode, END_OFFSET) : -1;
+    }
+
+    /**
+     * Parses a single time of the form "HH:MM:SS,mmm"
+     *
+     * @param value  Text containing the time
+     * @param offset Position where the time starts
+     * @return Time in milliseconds, or -1 if the format differs
+     */
+    public static long parseTime(CharSequence value, int offset) {
+        if (offset < 0 || offset + TIME_LENGTH > value.length()
+                || value.charAt(offset + 2) != ':' || value.charAt(offset + 5) != ':'
+                || value.charAt(offset + 8) != ',') {
+            return -1;
+        }
+        int hours = digits(value, offset, 2);
+        int minutes = digits(value, offset + 3, 2);
+        int seconds = digits(value, offset + 6, 2);
+        int millis = digits(value, offset + 9, 3);
+        if (hours < 0 || minutes < 0 || seconds < 0 || millis < 0) {
+            return -1;
+        }
+        return ((hours * 60L + minutes) * 60L + seconds) * 1000L + millis;
+    }
+
+    /**
+     * Formats a time code
+     *
+     * @param startMs Start time in milliseconds
+     * @param endMs   End time in milliseconds
+     * @return Time code in SRT format
+     */
+    public static String format(long startMs, long endMs) {
+        StringBuilder sb = new StringBuilder(TIME_CODE_LENGTH);
+        appendTime(sb, startMs);
+        sb.append(" --> ");
+        appendTime(sb, endMs);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a time in "HH:MM:SS,mmm" format
+     *
+     * @param sb Destination
+     * @param ms Time in milliseconds
+     */
+    public static void appendTime(StringBuilder sb, long ms) {
+        appendDigits(sb, ms / 3_600_000, 2);
+        sb.append(':');
+        appendDigits(sb, ms / 60_000 % 60, 2);
+        sb.append(':');
+        appendDigits(sb, ms / 1000 % 60, 2);
+        sb.append(',');
+        appendDigits(sb, ms % 1000, 3);
+    }
+
+    private static int digits(CharSequence value, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static void appendDigits(StringBuilder sb, long value, int width) {
+        long limit = 1;
+        for (int i = 1; i < width; i++) {
+            limit *= 10;
+        }
+        while (limit > 1 && value < limit) {
+            sb.append('0');
+            limit /= 10;
+        }
+        sb.append(value);
+    }
+}
@@ -29,6 +29,10 @@ let currentFileName = "subtitle.srt";
 // Translation session management
 let currentSessionId = null;
 let progressCheckInterval = null;
+let progressEventSource = null;
+let progressStreamDone = null;
+// Last file uploaded to the document store, so the same file is only sent once
+let uploadedDocument = null;
 
 /**
  * Establece el nombre del archivo actual
@@ -263,6 +267,7 @@ export async function translateSubtitles(
  * @property {Array<SubtitleConfidence>} confidenceData - Datos de confianza por subtítulo
  * @property {number} averageConfidence - Average translation confidence (0-1)
  * @property {string} averageConfidenceLevel - Nivel de confianza: "high", "medium" o "low"
+ * @property {string|null} formatWarning - Lines that exceed the recommended length, if any
  */
 
 /**
@@ -274,22 +279,86 @@ export async function translateSubtitles(
  */
 
 /**
- * Initialize a translation session for progress tracking
+ * Uploads an SRT file to the document store, once per file content
  *
- * @param {string} srtContent - SRT content to translate
- * @returns {Promise<string>} - Session ID for progress tracking
+ * @param {string} srtContent - SRT content
+ * @returns {Promise<string>} - Handle of the stored document
  */
-async function initTranslationSession(srtContent) {
-  try {
-    const response = await fetch("/api/translate/init", {
+function uploadDocument(srtContent) {
+  if (uploadedDocument && uploadedDocument.content === srtContent) {
+    return uploadedDocument.documentId;
+  }
+
+  const documentId = (async () => {
+    const response = await fetch("/api/documents", {
+      method: "POST",
+      headers: {
+        "Content-Type": "application/x-subrip; charset=UTF-8",
+      },
+      body: srtContent,
+    });
+    if (!response.ok) {
+      await throwResponseError(response);
+    }
+    const data = await response.json();
+    return data.documentId;
+  })();
+
+  uploadedDocument = { content: srtContent, documentId };
+  // Failed uploads are not reused
+  documentId.catch(() => {
+    if (uploadedDocument && uploadedDocument.documentId === documentId) {
+      uploadedDocument = null;
+    }
+  });
+  return documentId;
+}
+
+/**
+ * Posts a request that refers to an SRT file by its document handle,
+ * uploading the file again if the stored document has expired
+ *
+ * @param {string} url - Endpoint URL
+ * @param {string} srtContent - SRT content
+ * @param {Object} [fields] - Other request fields
+ * @returns {Promise<Response>} - Endpoint response
+ */
+async function postWithDocument(url, srtContent, fields = {}) {
+  for (let attempt = 0; ; attempt++) {
+    const documentId = await uploadDocument(srtContent);
+    const response = await fetch(url, {
       method: "POST",
       headers: {
         "Content-Type": "application/json",
       },
-      body: JSON.stringify({ srtContent }),
+      body: JSON.stringify({ ...fields, documentId }),
+    });
+    if (response.status !== 404 || attempt > 0) {
+      return response;
+    }
+    uploadedDocument = null;
+  }
+}
+
+/**
+ * Initialize a translation session for progress tracking and start the
+ * translation in the same request
+ *
+ * @param {string} srtContent - SRT content to translate
+ * @param {Object} options - Translation request fields
+ * @returns {Promise<string>} - Session ID for progress tracking
+ */
+async function initTranslationSession(srtContent, options) {
+  try {
+    const response = await postWithDocument("/api/translate/init", srtContent, {
+      ...options,
+      startTranslation: true,
     });
 
     if (!response.ok) {
+      if (response.status === 503) {
+        throw new Error("Too many translations in progress. Please try again later.");
+      }
       throw new Error(`Error HTTP ${response.status}`);
     }
 
@@ -325,6 +394,137 @@ async function checkTranslationProgress(sessionId) {
   }
 }
 
+/**
+ * Starts following the progress of a translation. Uses the Server-Sent
+ * Events stream when the browser supports it and polls the progress
+ * endpoint otherwise.
+ *
+ * @param {string} sessionId - Session ID for translation
+ * @param {function} [progressCallback] - Optional callback for progress updates
+ * @returns {Promise<void>} - Resolves when the stream reports the end of the
+ *   translation (immediately when polling)
+ */
+function startProgressUpdates(sessionId, progressCallback) {
+  if (typeof progressCallback !== "function") {
+    return Promise.resolve();
+  }
+
+  if (typeof EventSource === "undefined") {
+    startProgressPolling(progressCallback);
+    return Promise.resolve();
+  }
+
+  return new Promise((resolve) => {
+    const eventSource = new EventSource(
+      `/api/translate/progress/${sessionId}/stream`
+    );
+    progressEventSource = eventSource;
+    progressStreamDone = resolve;
+
+    eventSource.addEventListener("progress", (event) => {
+      const progress = JSON.parse(event.data);
+      progressCallback(progress);
+
+      // The server closes the stream once the translation is over
+      if (progress.phase === "completed" || progress.phase === "error") {
+        eventSource.close();
+        resolve();
+      }
+    });
+
+    eventSource.onerror = () => {
+      // Fall back to polling if the stream cannot be kept open
+      eventSource.close();
+      if (progressEventSource === eventSource && currentSessionId) {
+        progressEventSource = null;
+        startProgressPolling(progressCallback);
+      }
+      resolve();
+    };
+  });
+}
+
+/**
+ * Polls the progress endpoint every 500ms
+ *
+ * @param {function} progressCallback - Callback for progress updates
+ */
+function startProgressPolling(progressCallback) {
+  progressCheckInterval = setInterval(async () => {
+    try {
+      // If we don't have a current session, stop checking
+      if (!currentSessionId) {
+        stopProgressUpdates();
+        return;
+      }
+
+      const progress = await checkTranslationProgress(currentSessionId);
+      progressCallback(progress);
+
+      // If the translation is complete or has an error, stop checking
+      if (progress.phase === "completed" || progress.phase === "error") {
+        clearInterval(progressCheckInterval);
+        progressCheckInterval = null;
+      }
+    } catch (err) {
+      console.error("Error checking progress:", err);
+    }
+  }, 500);
+}
+
+/**
+ * Stops any progress stream or polling in course
+ */
+function stopProgressUpdates() {
+  if (progressEventSource) {
+    progressEventSource.close();
+    progressEventSource = null;
+  }
+  if (progressStreamDone) {
+    progressStreamDone();
+    progressStreamDone = null;
+  }
+  if (progressCheckInterval) {
+    clearInterval(progressCheckInterval);
+    progressCheckInterval = null;
+  }
+}
+
+/**
+ * Polls the result of a background translation until it is no longer running
+ *
+ * @param {string} sessionId - Session ID for translation
+ * @returns {Promise<Response>} - Final response of the result endpoint
+ */
+async function waitForTranslationResult(sessionId) {
+  while (true) {
+    const response = await fetch(`/api/translate/result/${sessionId}`);
+    if (response.status !== 202) {
+      return response;
+    }
+    if (currentSessionId !== sessionId) {
+      throw new Error("Translation cancelled");
+    }
+    await new Promise((resolve) => setTimeout(resolve, 500));
+  }
+}
+
+/**
+ * Throws an error with the message returned by the backend
+ *
+ * @param {Response} response - Failed response
+ */
+async function throwResponseError(response) {
+  let errorData;
+  try {
+    errorData = await response.json();
+  } catch (e) {
+    errorData = { message: `Error HTTP ${response.status}` };
+  }
+
+  throw new Error(errorData.message || "Error translating the file");
+}
+
 /**
  * Traduce un archivo de subtítulos SRT usando la API del backend con seguimiento de progreso
  *
@@ -343,85 +543,43 @@ export async function translateSRT(
   advancedOptions = {}
 ) {
   try {
-    // Clear any existing progress check interval
-    if (progressCheckInterval) {
-      clearInterval(progressCheckInterval);
-      progressCheckInterval = null;
-    }
-
-    // Initialize a translation session
-    const sessionId = await initTranslationSession(srtContent);
+    // Stop following any previous translation
+    stopProgressUpdates();
+
+    // Initialize a translation session; the server starts translating at once
+    const sessionId = await initTranslationSession(srtContent, {
+      targetLanguage: targetLang,
+      sourceLanguage: sourceLang,
+      fileName: getFileName(), // Get the file name from the currently selected file
+      formality: advancedOptions.formality || "default",
+      tagHandlingEnabled:
+        advancedOptions.tagHandlingEnabled !== undefined
+          ? advancedOptions.tagHandlingEnabled
+          : true,
+      preserveFormatting:
+        advancedOptions.preserveFormatting !== undefined
+          ? advancedOptions.preserveFormatting
+          : true,
+      glossaryId: advancedOptions.glossaryId || "",
+    });
     currentSessionId = sessionId;
 
-    // Set up progress checking interval if a callback is provided
-    if (typeof progressCallback === "function") {
-      // Check progress every 500ms
-      progressCheckInterval = setInterval(async () => {
-        try {
-          // If we don't have a current session, stop checking
-          if (!currentSessionId) {
-            clearInterval(progressCheckInterval);
-            progressCheckInterval = null;
-            return;
-          }
-
-          const progress = await checkTranslationProgress(currentSessionId);
-          progressCallback(progress);
-
-          // If the translation is complete or has an error, stop checking
-          if (progress.phase === "completed" || progress.phase === "error") {
-            clearInterval(progressCheckInterval);
-            progressCheckInterval = null;
-          }
-        } catch (err) {
-          console.error("Error checking progress:", err);
-        }
-      }, 500);
-    }
+    // Follow progress through the event stream (or polling as a fallback)
+    const progressFinished = startProgressUpdates(sessionId, progressCallback);
 
-    // Call the API to translate with the session ID
-    const response = await fetch(`/api/translate/subtitle/${sessionId}`, {
-      method: "POST",
-      headers: {
-        "Content-Type": "application/json",
-      },
-      body: JSON.stringify({
-        srtContent,
-        targetLanguage: targetLang,
-        sourceLanguage: sourceLang,
-        fileName: getFileName(), // Get the file name from the currently selected file
-        formality: advancedOptions.formality || "default",
-        tagHandlingEnabled:
-          advancedOptions.tagHandlingEnabled !== undefined
-            ? advancedOptions.tagHandlingEnabled
-            : true,
-        preserveFormatting:
-          advancedOptions.preserveFormatting !== undefined
-            ? advancedOptions.preserveFormatting
-            : true,
-        glossaryId: advancedOptions.glossaryId || "",
-      }),
-    });
+    // Wait for the background translation to finish
+    await progressFinished;
+    const resultResponse = await waitForTranslationResult(sessionId);
 
     // Stop progress checking now that translation is complete
-    if (progressCheckInterval) {
-      clearInterval(progressCheckInterval);
-      progressCheckInterval = null;
-    }
+    stopProgressUpdates();
     currentSessionId = null;
 
-    if (!response.ok) {
-      let errorData;
-      try {
-        errorData = await response.json();
-      } catch (e) {
-        errorData = { message: `Error HTTP ${response.status}` };
-      }
-
-      throw new Error(errorData.message || "Error translating the file");
+    if (!resultResponse.ok) {
+      await throwResponseError(resultResponse);
     }
 
-    const data = await response.json();
+    const data = await resultResponse.json();
 
     if (!data.success) {
       throw new Error(data.message || "Translation error");
@@ -432,15 +590,13 @@ export async function translateSRT(
       confidenceData: data.confidenceData || [],
       averageConfidence: data.averageConfidence || 1.0,
       averageConfidenceLevel: data.averageConfidenceLevel || "high",
+      formatWarning: data.formatWarning || null,
     };
   } catch (error) {
     console.error("Error traduciendo subtítulos:", error);
 
     // Ensure progress checking is stopped
-    if (progressCheckInterval) {
-      clearInterval(progressCheckInterval);
-      progressCheckInterval = null;
-    }
+    stopProgressUpdates();
     currentSessionId = null;
 
     // Notify error in progress
@@ -488,11 +644,7 @@ function parseSrtContent(srtContent) {
  * @returns {Promise<{success: boolean, language?: string, confidence?: number, message?: string}>}
  */
 export async function detectLanguage(srtContent) {
-  const response = await fetch("/api/translate/detect-language", {
-    method: "POST",
-    headers: { "Content-Type": "application/json" },
-    body: JSON.stringify({ srtContent }),
-  });
+  const response = await postWithDocument("/api/translate/detect-language", srtContent);
   const data = await response.json();
   return data;
 }
@@ -502,10 +654,7 @@ export async function detectLanguage(srtContent) {
  */
 export function cancelTranslation() {
   if (currentSessionId) {
-    if (progressCheckInterval) {
-      clearInterval(progressCheckInterval);
-      progressCheckInterval = null;
-    }
+    stopProgressUpdates();
     currentSessionId = null;
     return true;
   }
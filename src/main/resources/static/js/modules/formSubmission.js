@@ -5,7 +5,7 @@
 
 import { parseSRT, generateSRT } from "../utils/srtParser.js";
 import { translateSRT } from "../api/translationService.js";
-import { showErrorToast } from "../utils/toast.js";
+import { showErrorToast, showWarningToast } from "../utils/toast.js";
 
 /**
  * Options for the form submission module
@@ -155,6 +155,12 @@ export function initFormSubmission(options) {
         advancedOptions
       );
 
+      // Format warnings come apart from the translated content
+      if (result.formatWarning) {
+        console.warn(result.formatWarning);
+        showWarningToast("Some lines exceed 40 characters per line");
+      }
+
       // Call the success callback with the full response (including confidence information)
       if (typeof options.onTranslationSuccess === "function") {
         options.onTranslationSuccess({
@@ -0,0 +1,186 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.model.TranslationRequest;
+import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
+import io.github.cesarconte.subtitle_translator.service.BatchTranslationService;
+import io.github.cesarconte.subtitle_translator.service.ProgressTrackingService;
+import io.github.cesarconte.subtitle_translator.service.SubtitleDocumentService;
+import io.github.cesarconte.subtitle_translator.service.TranslationJobService;
+import io.github.cesarconte.subtitle_translator.util.SrtParser;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the translation of ZIP archives of SRT files
+ */
+public class BatchTranslationTests {
+
+    private static final String SRT = "1\n00:00:01,000 --> 00:00:02,000\nHello\n";
+    private static final List<String> LANGUAGES = List.of("ES", "FR");
+
+    private final TranslationJobService jobService = mock(TranslationJobService.class);
+    private final AppProperties appProperties = new AppProperties();
+    private final BatchTranslationService batchService = new BatchTranslationService(jobService,
+            new ProgressTrackingService(), new SubtitleDocumentService(new SrtParser()), appProperties);
+
+    private static byte[] zip(Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private Map<String, String> translate(Map<String, String> entries) throws Exception {
+        BatchTranslationService.Batch batch = batchService.prepare(new ByteArrayInputStream(zip(entries)),
+                LANGUAGES);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TranslationRequest options = new TranslationRequest();
+        options.setSourceLanguage("EN");
+        batchService.run(batch, options, output);
+        return unzip(output.toByteArray());
+    }
+
+    /**
+     * Answers every job with one translation per requested language
+     */
+    private void translateAll() throws Exception {
+        when(jobService.submit(anyString(), any(TranslationRequest.class), any(), anyLong(), any(TimeUnit.class)))
+                .thenAnswer(invocation -> {
+                    TranslationRequest request = invocation.getArgument(1);
+                    List<TranslationResponse> translations = new ArrayList<>();
+                    for (String targetLanguage : request.targets()) {
+                        TranslationResponse translation = new TranslationResponse(SRT.replace("Hello",
+                                "Hello " + targetLanguage), List.of(), 1.0);
+                        translation.setTargetLanguage(targetLanguage);
+                        translations.add(translation);
+                    }
+                    TranslationResponse response = new TranslationResponse();
+                    response.setSuccess(true);
+                    response.setTranslations(translations);
+                    return CompletableFuture.completedFuture(response);
+                });
+    }
+
+    @Test
+    public void testOneJobPerFileAndOneEntryPerLanguage() throws Exception {
+        translateAll();
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("readme.txt", "not a subtitle");
+        entries.put("episode01.srt", SRT);
+
+        Map<String, String> output = translate(entries);
+
+        assertEquals(List.of("episode01.es.srt", "episode01.fr.srt"), new ArrayList<>(output.keySet()));
+        assertEquals(SRT.replace("Hello", "Hello ES"), output.get("episode01.es.srt"));
+        assertEquals(SRT.replace("Hello", "Hello FR"), output.get("episode01.fr.srt"));
+
+        // Every language of the file is translated by the same job
+        ArgumentCaptor<TranslationRequest> request = ArgumentCaptor.forClass(TranslationRequest.class);
+        verify(jobService, times(1)).submit(anyString(), request.capture(), any(), anyLong(), any(TimeUnit.class));
+        assertEquals(LANGUAGES, request.getValue().targets());
+        assertEquals("EN", request.getValue().getSourceLanguage());
+    }
+
+    @Test
+    public void testInvalidSrtProducesErrorEntries() throws Exception {
+        translateAll();
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("broken.srt", "this is not\na subtitle file\n");
+        entries.put("episode01.srt", SRT);
+
+        Map<String, String> output = translate(entries);
+
+        assertEquals("The file does not have a valid SRT format", output.get("broken.es.error.txt"));
+        assertEquals("The file does not have a valid SRT format", output.get("broken.fr.error.txt"));
+        assertTrue(output.containsKey("episode01.es.srt"));
+        verify(jobService, times(1)).submit(anyString(), any(TranslationRequest.class), any(), anyLong(),
+                any(TimeUnit.class));
+    }
+
+    @Test
+    public void testArchiveLimits() throws Exception {
+        appProperties.getBatch().setMaxFiles(2);
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("a.srt", SRT);
+        entries.put("b.srt", SRT);
+        entries.put("c.srt", SRT);
+
+        IllegalArgumentException tooMany = assertThrows(IllegalArgumentException.class,
+                () -> batchService.prepare(new ByteArrayInputStream(zip(entries)), LANGUAGES));
+        assertEquals("The archive has more than 2 SRT files", tooMany.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> batchService.prepare(
+                new ByteArrayInputStream(zip(Map.of("readme.txt", "no subtitles"))), LANGUAGES));
+    }
+
+    @Test
+    public void testUnsafeEntryNamesAreFlattenedAndDeduplicated() throws Exception {
+        translateAll();
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("../../evil.srt", SRT);
+        entries.put("/evil.srt", SRT);
+        entries.put("C:\\evil.srt", SRT);
+        entries.put("season1/./episode01.srt", SRT);
+
+        Map<String, String> output = translate(entries);
+
+        assertEquals(List.of("evil.es.srt", "evil.fr.srt", "evil-2.es.srt", "evil-2.fr.srt",
+                "evil-3.es.srt", "evil-3.fr.srt", "season1/episode01.es.srt", "season1/episode01.fr.srt"),
+                new ArrayList<>(output.keySet()));
+    }
+
+    @Test
+    public void testFilesFailWhenTheJobQueueStaysFull() throws Exception {
+        appProperties.getBatch().setQueueTimeoutSeconds(0);
+        when(jobService.submit(anyString(), any(TranslationRequest.class), any(), anyLong(), any(TimeUnit.class)))
+                .thenThrow(new RejectedExecutionException("Too many translations in progress"));
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("a.srt", SRT);
+        entries.put("b.srt", SRT);
+
+        Map<String, String> output = translate(entries);
+
+        assertEquals(List.of("a.es.error.txt", "a.fr.error.txt", "b.es.error.txt", "b.fr.error.txt"),
+                new ArrayList<>(output.keySet()));
+        assertEquals("Too many translations in progress", output.get("b.fr.error.txt"));
+        // The first rejection fails the rest of the batch instead of waiting again
+        verify(jobService, times(1)).submit(anyString(), any(TranslationRequest.class), any(), anyLong(),
+                any(TimeUnit.class));
+    }
+}
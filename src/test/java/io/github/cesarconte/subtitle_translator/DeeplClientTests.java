@@ -0,0 +1,86 @@
+package io.github.cesarconte.subtitle_translator;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import io.github.cesarconte.subtitle_translator.service.DeeplClient;
+import io.github.cesarconte.subtitle_translator.service.DeeplRateLimiter;
+import io.github.cesarconte.subtitle_translator.service.GroupSizingPolicy;
+import io.github.cesarconte.subtitle_translator.service.TranslationOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las respuestas de DeepL, contra un servidor HTTP local
+ */
+public class DeeplClientTests {
+
+    private HttpServer server;
+    private DeeplClient client;
+    private volatile String responseBody;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/translate", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+
+        DeeplProperties properties = new DeeplProperties();
+        properties.getApi().setUrl("http://localhost:" + server.getAddress().getPort());
+        properties.getApi().setKey("test");
+        properties.getRateLimit().setInitialRateFraction(1.0);
+        client = new DeeplClient(properties, new DeeplRateLimiter(properties, new SimpleMeterRegistry()),
+                new GroupSizingPolicy(properties));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testTranslationsKeepRequestOrder() {
+        responseBody = "{\"translations\":[{\"detected_source_language\":\"EN\",\"text\":\"Hola\"},"
+                + "{\"detected_source_language\":\"EN\",\"text\":\"Adiós\"}]}";
+
+        List<String> translated = client.translate(List.of("Hello", "Goodbye"), "ES", "EN",
+                new TranslationOptions()).block();
+
+        assertEquals(List.of("Hola", "Adiós"), translated);
+    }
+
+    @Test
+    public void testCountMismatchFails() {
+        responseBody = "{\"translations\":[{\"detected_source_language\":\"EN\",\"text\":\"Hola\"}]}";
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> client.translate(List.of("Hello", "Goodbye"), "ES", "EN", new TranslationOptions()).block());
+        assertTrue(e.getMessage().contains("Expected 2 translations but received 1"), e.getMessage());
+    }
+
+    @Test
+    public void testMissingTranslationsFails() {
+        responseBody = "{}";
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> client.translate(List.of("Hello"), "ES", "EN", new TranslationOptions()).block());
+        assertTrue(e.getMessage().contains("Expected 1 translations but received 0"), e.getMessage());
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import io.github.cesarconte.subtitle_translator.service.DeeplRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas para el limitador adaptativo de peticiones a DeepL
+ */
+public class DeeplRateLimiterTests {
+
+    private DeeplRateLimiter createLimiter() {
+        DeeplProperties properties = new DeeplProperties();
+        properties.getRateLimit().setMaxRequestsPerSecond(10);
+        properties.getRateLimit().setMaxCharactersPerSecond(1000);
+        properties.getRateLimit().setInitialRateFraction(1.0);
+        properties.getRateLimit().setDecreaseFactor(0.5);
+        properties.getRateLimit().setIncreaseStep(0.1);
+        return new DeeplRateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testThrottlingHalvesRate() {
+        DeeplRateLimiter limiter = createLimiter();
+
+        limiter.onThrottled(Duration.ZERO);
+
+        assertEquals(5.0, limiter.getRequestsPerSecond(), 0.001);
+        assertEquals(500.0, limiter.getCharactersPerSecond(), 0.001);
+    }
+
+    @Test
+    public void testSuccessProbesRateBackUp() {
+        DeeplRateLimiter limiter = createLimiter();
+        limiter.onThrottled(Duration.ZERO);
+
+        limiter.onSuccess();
+
+        assertEquals(6.0, limiter.getRequestsPerSecond(), 0.001);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(10.0, limiter.getRequestsPerSecond(), 0.001,
+                "El límite nunca debe superar el máximo configurado");
+    }
+
+    @Test
+    public void testCharacterBudgetDelaysNextCall() {
+        DeeplRateLimiter limiter = createLimiter();
+
+        assertEquals(0, limiter.reserve(500), "La primera petición no debe esperar");
+        long waitNanos = limiter.reserve(10);
+
+        // 500 caracteres a 1000 caracteres/s equivalen a ~0.5 segundos
+        assertTrue(waitNanos > Duration.ofMillis(400).toNanos(),
+                "La segunda petición debería esperar al presupuesto de caracteres, pero esperó " + waitNanos);
+    }
+
+    @Test
+    public void testRetryAfterBlocksNewCalls() {
+        DeeplRateLimiter limiter = createLimiter();
+
+        limiter.onThrottled(Duration.ofSeconds(2));
+        long waitNanos = limiter.reserve(1);
+
+        assertTrue(waitNanos > Duration.ofMillis(1500).toNanos(),
+                "Las peticiones deben esperar el tiempo indicado por Retry-After");
+    }
+}
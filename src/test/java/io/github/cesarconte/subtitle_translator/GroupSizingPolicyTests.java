@@ -0,0 +1,133 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import io.github.cesarconte.subtitle_translator.service.DeeplClient;
+import io.github.cesarconte.subtitle_translator.service.GroupSizingPolicy;
+import io.github.cesarconte.subtitle_translator.service.SegmentTranslationCache;
+import io.github.cesarconte.subtitle_translator.service.TranslationOptions;
+import io.github.cesarconte.subtitle_translator.service.TranslationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas del tamaño de las peticiones a DeepL
+ */
+public class GroupSizingPolicyTests {
+
+    private GroupSizingPolicy createPolicy(int maxBytes, int maxSubtitles) {
+        DeeplProperties properties = new DeeplProperties();
+        properties.getBatching().setTargetCharsPerRequest(1000);
+        properties.getBatching().setMinCharsPerRequest(100);
+        properties.getBatching().setMaxCharsPerRequest(5000);
+        properties.getBatching().setMaxBytesPerRequest(maxBytes);
+        properties.getBatching().setMaxSubtitlesPerRequest(maxSubtitles);
+        properties.getBatching().setTargetLatencyMs(1000);
+        return new GroupSizingPolicy(properties);
+    }
+
+    @Test
+    public void testGroupsAreCappedBySubtitleCount() {
+        GroupSizingPolicy policy = createPolicy(120 * 1024, 50);
+
+        List<List<String>> groups = policy.group(Collections.nCopies(120, "a"), Function.identity());
+
+        assertEquals(3, groups.size());
+        assertEquals(50, groups.get(0).size());
+        assertEquals(50, groups.get(1).size());
+        assertEquals(20, groups.get(2).size());
+    }
+
+    @Test
+    public void testGroupsAreCappedByEncodedBytes() {
+        // 100 caracteres no ASCII ocupan 606 bytes codificados: caben 3 por petición
+        String text = "ñ".repeat(100);
+        assertEquals(606, GroupSizingPolicy.estimateFormBytes(text));
+        GroupSizingPolicy policy = createPolicy(2000, 50);
+
+        List<List<String>> groups = policy.group(Collections.nCopies(7, text), Function.identity());
+
+        assertEquals(List.of(3, 3, 1), groups.stream().map(List::size).toList());
+    }
+
+    @Test
+    public void testOversizedTextGetsItsOwnGroup() {
+        GroupSizingPolicy policy = createPolicy(120 * 1024, 50);
+        List<String> texts = List.of("a", "b".repeat(2000), "c");
+
+        List<List<String>> groups = policy.group(texts, Function.identity());
+
+        assertEquals(List.of(List.of("a"), List.of("b".repeat(2000)), List.of("c")), groups);
+    }
+
+    @Test
+    public void testBudgetFollowsLatencyMovingAverage() {
+        GroupSizingPolicy policy = createPolicy(120 * 1024, 50);
+        assertEquals(1000, policy.getCharBudget(), "Sin medidas se usa el objetivo configurado");
+
+        // Peticiones pequeñas no cuentan: su tiempo es sobre todo coste fijo
+        policy.recordLatency(100, 10_000_000_000L);
+        assertEquals(1000, policy.getCharBudget());
+
+        // 1 ms por carácter con 1000 ms objetivo: 1000 caracteres
+        policy.recordLatency(1000, 1_000_000_000L);
+        assertEquals(1000, policy.getCharBudget());
+
+        // Más rápido: media 0.8 * 1 + 0.2 * 0.1 = 0.82 ms por carácter
+        policy.recordLatency(1000, 100_000_000L);
+        assertEquals(1220, policy.getCharBudget());
+
+        // Más lento: media 0.8 * 0.82 + 0.2 * 5 = 1.656 ms por carácter
+        policy.recordLatency(1000, 5_000_000_000L);
+        assertEquals(604, policy.getCharBudget());
+    }
+
+    @Test
+    public void testBudgetStaysWithinLimits() {
+        GroupSizingPolicy policy = createPolicy(120 * 1024, 50);
+
+        for (int i = 0; i < 50; i++) {
+            policy.recordLatency(1000, 1_000_000L);
+        }
+        assertEquals(5000, policy.getCharBudget());
+
+        for (int i = 0; i < 50; i++) {
+            policy.recordLatency(1000, 100_000_000_000L);
+        }
+        assertEquals(100, policy.getCharBudget());
+    }
+
+    @Test
+    public void testEachGroupIsOneDeeplRequest() {
+        DeeplProperties properties = new DeeplProperties();
+        // Por encima del antiguo límite fijo de 50 textos por petición
+        properties.getBatching().setMaxSubtitlesPerRequest(80);
+        DeeplClient deeplClient = mock(DeeplClient.class);
+        when(deeplClient.translate(anyList(), anyString(), any(), any(TranslationOptions.class)))
+                .thenAnswer(invocation -> {
+                    List<String> texts = invocation.getArgument(0);
+                    return Mono.just(texts.stream().map(text -> text + " ES").toList());
+                });
+        TranslationService translationService = new TranslationService(properties, deeplClient,
+                new GroupSizingPolicy(properties), mock(SegmentTranslationCache.class), new SimpleMeterRegistry());
+        List<String> texts = IntStream.range(0, 120).mapToObj(i -> "line " + i).toList();
+
+        List<String> translated = translationService.translateBatch(texts, "ES", "EN", new TranslationOptions());
+
+        assertEquals(texts.stream().map(text -> text + " ES").toList(), translated);
+        // El tamaño configurado decide las peticiones: 80 + 40 textos
+        ArgumentCaptor<List<String>> requests = ArgumentCaptor.forClass(List.class);
+        verify(deeplClient, times(2)).translate(requests.capture(), eq("ES"), eq("EN"), any(TranslationOptions.class));
+        assertEquals(List.of(80, 40), requests.getAllValues().stream().map(List::size).toList());
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.model.TranslationProgress;
+import io.github.cesarconte.subtitle_translator.service.ProgressTrackingService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las sesiones que siguen el progreso de otra
+ */
+public class ProgressTrackingTests {
+
+    @Test
+    public void testListenerSubscribedBeforeFollowSessionReceivesLeaderProgress() {
+        ProgressTrackingService service = new ProgressTrackingService();
+        String leader = service.startTracking(100);
+        String follower = service.startTracking(100);
+
+        List<TranslationProgress> received = new ArrayList<>();
+        Consumer<TranslationProgress> listener = received::add;
+        service.addProgressListener(follower, listener);
+
+        service.updateProgress(leader, "translating", "Translating...", 40);
+        service.followSession(follower, leader);
+
+        // Al unirse recibe el progreso actual del líder
+        assertEquals(1, received.size());
+        assertEquals(40, received.get(0).getTranslatedChars());
+
+        service.updateProgress(leader, "translating", "Translating...", 80);
+        assertEquals(2, received.size());
+        assertEquals(80, received.get(1).getTranslatedChars());
+        assertEquals(80, service.getProgress(follower).getTranslatedChars());
+
+        // Al darse de baja con el ID del seguidor deja de recibir eventos
+        service.removeProgressListener(follower, listener);
+        service.updateProgress(leader, "translating", "Translating...", 90);
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testListenerSubscribedAfterFollowSessionReceivesLeaderProgress() {
+        ProgressTrackingService service = new ProgressTrackingService();
+        String leader = service.startTracking(100);
+        String follower = service.startTracking(100);
+        service.followSession(follower, leader);
+
+        List<TranslationProgress> received = new ArrayList<>();
+        service.addProgressListener(follower, received::add);
+        service.completeTracking(leader, true, "Translation completed");
+
+        assertEquals(1, received.size());
+        assertEquals(100, received.get(0).getTranslatedChars());
+    }
+}
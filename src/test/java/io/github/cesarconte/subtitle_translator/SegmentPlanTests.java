@@ -0,0 +1,54 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.service.SegmentPlan;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la deduplicación de segmentos
+ */
+public class SegmentPlanTests {
+
+    @Test
+    public void testRepeatedAndEmptyTextsAreTranslatedOnce() {
+        SegmentPlan plan = SegmentPlan.of(List.of("Hola", "", "Adiós", "Hola", "", "Hola"));
+
+        assertEquals(6, plan.size());
+        assertEquals(List.of("Hola", "", "Adiós"), plan.getDistinctTexts());
+        assertEquals(3, plan.getOccurrences(0));
+        assertEquals(2, plan.getOccurrences(1));
+        assertEquals(1, plan.getOccurrences(2));
+        // Las repeticiones vacías no ahorran caracteres
+        assertEquals(8, plan.getSavedChars());
+    }
+
+    @Test
+    public void testFanOutKeepsInputOrder() {
+        SegmentPlan plan = SegmentPlan.of(List.of("Hola", "", "Adiós", "Hola", "", "Hola"));
+
+        List<String> translated = plan.fanOut(new String[] { "Hello", "", "Goodbye" });
+
+        assertEquals(List.of("Hello", "", "Goodbye", "Hello", "", "Hello"), translated);
+    }
+
+    @Test
+    public void testDistinctTextsSaveNothing() {
+        SegmentPlan plan = SegmentPlan.of(List.of("uno", "dos", "tres"));
+
+        assertEquals(3, plan.getDistinctTexts().size());
+        assertEquals(0, plan.getSavedChars());
+        assertEquals(List.of("1", "2", "3"), plan.fanOut(new String[] { "1", "2", "3" }));
+    }
+
+    @Test
+    public void testEmptyInput() {
+        SegmentPlan plan = SegmentPlan.of(List.of());
+
+        assertEquals(0, plan.size());
+        assertTrue(plan.getDistinctTexts().isEmpty());
+        assertEquals(List.of(), plan.fanOut(new String[0]));
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.config.DeeplProperties;
+import io.github.cesarconte.subtitle_translator.model.SegmentTranslation;
+import io.github.cesarconte.subtitle_translator.repository.SegmentTranslationRepository;
+import io.github.cesarconte.subtitle_translator.service.SegmentTranslationCache;
+import io.github.cesarconte.subtitle_translator.service.TranslationOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de la memoria de traducción por segmento
+ */
+public class SegmentTranslationCacheTests {
+
+    // Colección segment_translations simulada
+    private final Map<String, SegmentTranslation> stored = new HashMap<>();
+    private final SegmentTranslationRepository repository = mock(SegmentTranslationRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    public SegmentTranslationCacheTests() {
+        when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<SegmentTranslation> segments = invocation.getArgument(0);
+            segments.forEach(segment -> stored.put(segment.getId(), segment));
+            return List.of();
+        });
+        when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<String> ids = invocation.getArgument(0);
+            List<SegmentTranslation> found = new ArrayList<>();
+            ids.forEach(id -> {
+                if (stored.containsKey(id)) {
+                    found.add(stored.get(id));
+                }
+            });
+            return found;
+        });
+    }
+
+    private SegmentTranslationCache createCache() {
+        return new SegmentTranslationCache(repository, meterRegistry, new DeeplProperties());
+    }
+
+    private double count(String tier) {
+        return meterRegistry.counter("translation.segment.cache", "tier", tier, "pair", "EN-ES").count();
+    }
+
+    @Test
+    public void testWhitespaceDifferencesShareAnEntry() {
+        SegmentTranslationCache cache = createCache();
+        TranslationOptions options = new TranslationOptions();
+        cache.store(List.of("Hello   world \n  again"), List.of("Hola mundo\notra vez"), "es", "en", options);
+
+        Map<Integer, String> hits = cache.lookup(List.of("Hello world\nagain", " Hello world  \r\nagain\n",
+                "Hello world again", "hello world\nagain"), "ES", "EN", options);
+
+        assertEquals(Map.of(0, "Hola mundo\notra vez", 1, "Hola mundo\notra vez"), hits);
+    }
+
+    @Test
+    public void testOptionsThatChangeTheOutputAreKeyed() {
+        SegmentTranslationCache cache = createCache();
+        cache.store(List.of("Hello"), List.of("Hola"), "ES", "EN", new TranslationOptions());
+
+        TranslationOptions formal = new TranslationOptions();
+        formal.setFormality("more");
+        TranslationOptions glossary = new TranslationOptions();
+        glossary.setGlossaryId("glossary-1");
+        TranslationOptions noTags = new TranslationOptions();
+        noTags.setTagHandlingEnabled(false);
+
+        assertEquals(Map.of(0, "Hola"), cache.lookup(List.of("Hello"), "ES", "EN", new TranslationOptions()));
+        assertTrue(cache.lookup(List.of("Hello"), "ES", "EN", formal).isEmpty());
+        assertTrue(cache.lookup(List.of("Hello"), "ES", "EN", glossary).isEmpty());
+        assertTrue(cache.lookup(List.of("Hello"), "ES", "EN", noTags).isEmpty());
+        assertTrue(cache.lookup(List.of("Hello"), "FR", "EN", new TranslationOptions()).isEmpty());
+        assertTrue(cache.lookup(List.of("Hello"), "ES", null, new TranslationOptions()).isEmpty());
+    }
+
+    @Test
+    public void testDatabaseHitsArePromotedToMemory() {
+        TranslationOptions options = new TranslationOptions();
+        createCache().store(List.of("Hello"), List.of("Hola"), "ES", "EN", options);
+        // Otra instancia, con la memoria vacía, comparte la colección
+        SegmentTranslationCache cache = createCache();
+
+        assertEquals(Map.of(0, "Hola"), cache.lookup(List.of("Hello"), "ES", "EN", options));
+        assertEquals(1, count("database"));
+        assertEquals(0, count("memory"));
+
+        assertEquals(Map.of(0, "Hola"), cache.lookup(List.of("Hello"), "ES", "EN", options));
+        assertEquals(1, count("database"));
+        assertEquals(1, count("memory"));
+        verify(repository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    public void testPartialHitsKeepTheirPositions() {
+        TranslationOptions options = new TranslationOptions();
+        // "Bye" solo está en la colección; "Hello", también en memoria
+        createCache().store(List.of("Bye"), List.of("Adiós"), "ES", "EN", options);
+        SegmentTranslationCache cache = createCache();
+        cache.store(List.of("Hello"), List.of("Hola"), "ES", "EN", options);
+
+        Map<Integer, String> hits = cache.lookup(List.of("Hello", "Unknown", "Bye", "Hello", "Bye"), "ES", "EN",
+                options);
+
+        assertEquals(Map.of(0, "Hola", 2, "Adiós", 3, "Hola", 4, "Adiós"), hits);
+        assertEquals(2, count("memory"));
+        assertEquals(2, count("database"));
+        assertEquals(1, count("miss"));
+    }
+}
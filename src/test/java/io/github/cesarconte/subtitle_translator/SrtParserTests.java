@@ -1,11 +1,15 @@
 package io.github.cesarconte.subtitle_translator;
 
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
 import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
 import io.github.cesarconte.subtitle_translator.util.SrtParser;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -79,4 +83,63 @@ public class SrtParserTests {
         assertFalse(srtParser.isValid(invalidContent1));
         assertFalse(srtParser.isValid(invalidContent2));
     }
+
+    @Test
+    public void testParseDocumentCarriesBlocksAndCounts() {
+        String content = "1\n" +
+                "00:00:01,000 --> 00:00:04,000\n" +
+                "Hola\n" +
+                "mundo\n" +
+                "\n" +
+                "2\n" +
+                "00:00:05,000 --> 00:00:09,000\n" +
+                "Adiós\n";
+
+        ParsedSubtitleDocument document = srtParser.parseDocument(content);
+
+        assertTrue(document.isValid());
+        assertEquals(2, document.getBlocks().size());
+        assertEquals("Hola\nmundo", document.getSegmentTexts().get(0));
+        assertEquals(10, document.getBlockChars(0));
+        assertEquals(15, document.getTotalChars());
+        assertEquals(32, document.getContentHash().length());
+
+        assertFalse(srtParser.parseDocument("1\nsin código de tiempo\nTexto\n").isValid());
+    }
+
+    @Test
+    public void testParseDocumentFromStreamMatchesString() {
+        String content = "1\r\n" +
+                "00:00:01,000 --> 00:00:04,000\r\n" +
+                "Canción\r\n";
+
+        ParsedSubtitleDocument fromString = srtParser.parseDocument(content);
+        ParsedSubtitleDocument fromStream = srtParser
+                .parseDocument(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(fromStream.isValid());
+        assertEquals(fromString.getContentHash(), fromStream.getContentHash());
+        assertEquals("Canción", fromStream.getSegmentTexts().get(0));
+    }
+
+    @Test
+    public void testCompactDocumentRoundTrip() {
+        String content = "1\n" +
+                "00:00:01,000 --> 00:00:04,000\n" +
+                "Línea de texto 1\n" +
+                "Línea de texto 2\n" +
+                "\n" +
+                "2\n" +
+                "00:00:05,000 --> 00:00:09,000 X1:100 X2:200\n" +
+                "Otra línea de texto\n";
+
+        CompactSubtitleDocument subtitles = srtParser.parseDocument(content).getSubtitles();
+
+        assertEquals(2, subtitles.size());
+        assertEquals(1000, subtitles.getStartMs(0));
+        assertEquals(4000, subtitles.getEndMs(0));
+        assertEquals("Línea de texto 1\nLínea de texto 2", subtitles.getText(0));
+        assertEquals("00:00:05,000 --> 00:00:09,000 X1:100 X2:200", subtitles.getTimeCode(1));
+        assertEquals(content, srtParser.generate(subtitles));
+    }
 }
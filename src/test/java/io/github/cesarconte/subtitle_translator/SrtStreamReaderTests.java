@@ -0,0 +1,87 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
+import io.github.cesarconte.subtitle_translator.util.SrtParser;
+import io.github.cesarconte.subtitle_translator.util.SrtStreamReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas para la lectura de SRT bloque a bloque
+ */
+public class SrtStreamReaderTests {
+
+    private List<SubtitleBlock> readAll(SrtStreamReader reader) {
+        List<SubtitleBlock> blocks = new ArrayList<>();
+        reader.forEachRemaining(blocks::add);
+        return blocks;
+    }
+
+    @Test
+    public void testReadsCrlfAndCrLineEndings() {
+        String content = "1\r\n00:00:01,000 --> 00:00:04,000\r\nPrimera línea\r\nSegunda línea\r\n\r\n"
+                + "2\r00:00:05,000 --> 00:00:09,000\rOtra línea\r";
+
+        List<SubtitleBlock> blocks = readAll(new SrtStreamReader(new StringReader(content)));
+
+        assertEquals(2, blocks.size());
+        assertArrayEquals(new String[] { "Primera línea", "Segunda línea" }, blocks.get(0).getText());
+        assertEquals(2, blocks.get(1).getId());
+        assertEquals("00:00:05,000 --> 00:00:09,000", blocks.get(1).getTimeCode());
+        assertArrayEquals(new String[] { "Otra línea" }, blocks.get(1).getText());
+    }
+
+    @Test
+    public void testIgnoresByteOrderMark() {
+        byte[] content = ("\uFEFF1\n00:00:01,000 --> 00:00:04,000\nHola\n")
+                .getBytes(StandardCharsets.UTF_8);
+
+        List<SubtitleBlock> blocks = readAll(new SrtStreamReader(new ByteArrayInputStream(content)));
+
+        assertEquals(1, blocks.size());
+        assertEquals(1, blocks.get(0).getId());
+    }
+
+    @Test
+    public void testReadsConcatenatedFilesAndSkipsInvalidBlocks() {
+        String content = "1\n00:00:01,000 --> 00:00:04,000\nHola\n\n\n\n"
+                + "bloque sin número\n00:00:02,000 --> 00:00:03,000\nTexto\n\n"
+                + "\uFEFF1\n00:00:01,000 --> 00:00:02,000\nAdiós\n";
+
+        List<SubtitleBlock> blocks = readAll(new SrtStreamReader(new StringReader(content)));
+
+        assertEquals(2, blocks.size());
+        assertEquals("Hola", blocks.get(0).getText()[0]);
+        assertEquals("Adiós", blocks.get(1).getText()[0]);
+    }
+
+    @Test
+    public void testSkipsUnterminatedBlocks() {
+        String valid = "1\n00:00:01,000 --> 00:00:04,000\nHola\n";
+        // Bloque sin líneas vacías: demasiadas líneas para un subtítulo
+        String manyLines = "2\n00:00:05,000 --> 00:00:06,000\n" + "texto\n".repeat(10_000);
+        // Una sola línea enorme, sin saltos de línea
+        String longLine = "3\n00:00:07,000 --> 00:00:08,000\n" + "x".repeat(1_000_000);
+
+        List<SubtitleBlock> blocks = readAll(new SrtStreamReader(new StringReader(
+                valid + "\n" + manyLines + "\n" + valid.replace("Hola", "Adiós") + "\n" + longLine)));
+
+        assertEquals(2, blocks.size());
+        assertEquals("Hola", blocks.get(0).getText()[0]);
+        assertEquals("Adiós", blocks.get(1).getText()[0]);
+
+        // El documento con un bloque descartado no es válido
+        SrtParser parser = new SrtParser();
+        assertFalse(parser.isValid(valid + "\n" + longLine));
+        assertFalse(parser.parseDocument(new ByteArrayInputStream((valid + "\n" + manyLines)
+                .getBytes(StandardCharsets.UTF_8))).isValid());
+        assertTrue(parser.isValid(valid));
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.controller.SubtitleTimingController;
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.SubtitleBlock;
+import io.github.cesarconte.subtitle_translator.model.TimingRequest;
+import io.github.cesarconte.subtitle_translator.service.SubtitleDocumentService;
+import io.github.cesarconte.subtitle_translator.service.SubtitleTimingService;
+import io.github.cesarconte.subtitle_translator.util.SrtParser;
+import io.github.cesarconte.subtitle_translator.util.SrtWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la escritura de SRT bloque a bloque
+ */
+public class SrtWriterTests {
+
+    private final SrtParser srtParser = new SrtParser();
+
+    private static List<SubtitleBlock> blocks() {
+        return List.of(
+                new SubtitleBlock(1, "00:00:01,000 --> 00:00:02,000", new String[] { "Hola", "<i>¿Qué tal?</i>" }),
+                new SubtitleBlock(2, "00:00:03,000 --> 00:00:04,000", new String[0]),
+                new SubtitleBlock(3, "00:00:05,000 --> 00:00:06,000", new String[] { "Adiós" }));
+    }
+
+    private static CompactSubtitleDocument compact(List<SubtitleBlock> blocks) {
+        CompactSubtitleDocument.Builder builder = CompactSubtitleDocument.builder(blocks.size());
+        for (SubtitleBlock block : blocks) {
+            builder.add(block.getId(), block.getTimeCode(), List.of(block.getText()));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testBlocksAreSeparatedByOneBlankLine() throws Exception {
+        StringWriter output = new StringWriter();
+        SrtWriter writer = new SrtWriter(output);
+        for (SubtitleBlock block : blocks()) {
+            writer.write(block);
+        }
+
+        // Sin línea en blanco tras el último bloque; el bloque vacío no añade líneas
+        assertEquals("1\n00:00:01,000 --> 00:00:02,000\nHola\n<i>¿Qué tal?</i>\n"
+                + "\n2\n00:00:03,000 --> 00:00:04,000\n"
+                + "\n3\n00:00:05,000 --> 00:00:06,000\nAdiós\n", output.toString());
+    }
+
+    @Test
+    public void testCompactDocumentsMatchTheBlockOutput() throws Exception {
+        StringWriter output = new StringWriter();
+        new SrtWriter(output).writeAll(compact(blocks()));
+
+        assertEquals(srtParser.generate(blocks()), output.toString());
+        assertEquals(srtParser.generate(blocks()), srtParser.generate(compact(blocks())));
+    }
+
+    @Test
+    public void testStreamOutputIsByteIdenticalToGenerate() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SrtWriter writer = new SrtWriter(bytes);
+        writer.writeAll(compact(blocks()));
+        writer.flush();
+
+        assertArrayEquals(srtParser.generate(blocks()).getBytes(StandardCharsets.UTF_8), bytes.toByteArray());
+    }
+
+    @Test
+    public void testEmptyDocumentWritesNothing() throws Exception {
+        StringWriter output = new StringWriter();
+        new SrtWriter(output).writeAll(compact(List.of()));
+
+        assertEquals("", output.toString());
+    }
+
+    @Test
+    public void testTimingAdjustmentIsStreamed() throws Exception {
+        SubtitleTimingController controller = new SubtitleTimingController(
+                new SubtitleDocumentService(srtParser), new SubtitleTimingService());
+        TimingRequest request = new TimingRequest();
+        request.setSrtContent("1\n00:00:01,000 --> 00:00:02,000\nHola\n\n2\n00:00:05,000 --> 00:00:06,000\nAdiós\n");
+        request.setShiftMs(1000);
+
+        ResponseEntity<?> response = controller.adjustTiming(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(bytes);
+        assertEquals("1\n00:00:02,000 --> 00:00:03,000\nHola\n\n2\n00:00:06,000 --> 00:00:07,000\nAdiós\n",
+                bytes.toString(StandardCharsets.UTF_8));
+    }
+}
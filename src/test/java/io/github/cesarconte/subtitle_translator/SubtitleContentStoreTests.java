@@ -0,0 +1,139 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.model.SubtitleContent;
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.repository.TranslationRepository;
+import io.github.cesarconte.subtitle_translator.service.SubtitleContentStore;
+import io.github.cesarconte.subtitle_translator.service.TranslationAccessTracker;
+import io.github.cesarconte.subtitle_translator.service.TranslationKeyFilter;
+import io.github.cesarconte.subtitle_translator.service.TranslationStorageService;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas del almacén de contenidos comprimidos y direccionados por hash
+ */
+public class SubtitleContentStoreTests {
+
+    private static final String ORIGINAL = "1\n00:00:01,000 --> 00:00:02,000\nHello\n";
+    private static final String TRANSLATED = "1\n00:00:01,000 --> 00:00:02,000\nHola\n";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class);
+    private final SubtitleContentStore store = new SubtitleContentStore(mongoTemplate);
+
+    private static String md5(String content) {
+        return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testStoreAllWritesMissingContentsInOneBulkUpsert() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SubtitleContent.class))
+                .thenReturn(bulkOperations);
+
+        String[] hashes = store.storeAll(ORIGINAL, TRANSLATED, ORIGINAL);
+
+        assertArrayEquals(new String[] { md5(ORIGINAL), md5(TRANSLATED), md5(ORIGINAL) }, hashes);
+        // El contenido repetido se escribe una sola vez, en la misma operación
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(SubtitleContent.class));
+        verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    public void testKnownContentsAreNotWrittenAgain() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SubtitleContent.class))
+                .thenReturn(bulkOperations);
+        store.storeAll(ORIGINAL, TRANSLATED);
+
+        String[] hashes = store.storeAll(ORIGINAL, TRANSLATED);
+
+        assertArrayEquals(new String[] { md5(ORIGINAL), md5(TRANSLATED) }, hashes);
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(SubtitleContent.class));
+    }
+
+    @Test
+    public void testCompressedContentRoundTrip() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SubtitleContent.class))
+                .thenReturn(bulkOperations);
+        String content = ORIGINAL.repeat(200);
+        store.storeAll(content);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).upsert(any(Query.class), update.capture());
+        Document onInsert = (Document) update.getValue().getUpdateObject().get("$setOnInsert");
+        byte[] data = (byte[]) onInsert.get("data");
+        // Se guarda comprimido, con el tamaño original
+        assertTrue(data.length < content.length());
+        assertEquals((long) content.getBytes(StandardCharsets.UTF_8).length, onInsert.get("size"));
+
+        SubtitleContent stored = new SubtitleContent();
+        stored.setHash(md5(content));
+        stored.setData(data);
+        when(mongoTemplate.findById(md5(content), SubtitleContent.class)).thenReturn(stored);
+
+        assertEquals(content, store.load(md5(content)).orElseThrow());
+        assertTrue(store.load("missing").isEmpty());
+        assertTrue(store.load(null).isEmpty());
+    }
+
+    @Test
+    public void testRemovedContentIsWrittenAgain() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SubtitleContent.class))
+                .thenReturn(bulkOperations);
+        store.storeAll(ORIGINAL);
+
+        store.remove(md5(ORIGINAL));
+        store.storeAll(ORIGINAL);
+
+        verify(mongoTemplate).remove(any(Query.class), eq(SubtitleContent.class));
+        verify(mongoTemplate, times(2)).bulkOps(any(BulkOperations.BulkMode.class), eq(SubtitleContent.class));
+    }
+
+    @Test
+    public void testDeleteRemovesOnlyUnreferencedContents() {
+        SubtitleContentStore contentStore = mock(SubtitleContentStore.class);
+        TranslationStorageService storageService = new TranslationStorageService(
+                mock(TranslationRepository.class), mongoTemplate, contentStore,
+                mock(TranslationAccessTracker.class), mock(TranslationKeyFilter.class));
+        Translation deleted = new Translation();
+        deleted.setOriginalContentHash("shared");
+        deleted.setTranslatedContentHash("own");
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Translation.class))).thenReturn(deleted);
+        // El original lo usa también la traducción a otro idioma
+        when(mongoTemplate.exists(any(Query.class), eq(Translation.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            List<?> clauses = (List<?>) query.getQueryObject().get("$or");
+            return clauses.contains(new Document("originalContentHash", "shared"));
+        });
+
+        assertTrue(storageService.deleteTranslation("id"));
+
+        verify(contentStore).remove("own");
+        verify(contentStore, never()).remove("shared");
+    }
+
+    @Test
+    public void testDeleteMissingTranslation() {
+        SubtitleContentStore contentStore = mock(SubtitleContentStore.class);
+        TranslationStorageService storageService = new TranslationStorageService(
+                mock(TranslationRepository.class), mongoTemplate, contentStore,
+                mock(TranslationAccessTracker.class), mock(TranslationKeyFilter.class));
+
+        assertFalse(storageService.deleteTranslation("missing"));
+        verifyNoInteractions(contentStore);
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.TimingRequest;
+import io.github.cesarconte.subtitle_translator.service.SubtitleTimingService;
+import io.github.cesarconte.subtitle_translator.util.TimecodeParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas para el análisis de códigos de tiempo y los ajustes de tiempos
+ */
+public class SubtitleTimingTests {
+
+    private final SubtitleTimingService timingService = new SubtitleTimingService();
+
+    @Test
+    public void testParsesAndFormatsTimeCodes() {
+        String timeCode = "01:02:03,456 --> 01:02:04,007";
+
+        assertTrue(TimecodeParser.isValid(timeCode));
+        assertEquals(3_723_456, TimecodeParser.parseStart(timeCode));
+        assertEquals(3_724_007, TimecodeParser.parseEnd(timeCode));
+        assertEquals(timeCode, TimecodeParser.format(3_723_456, 3_724_007));
+
+        assertFalse(TimecodeParser.isValid("00:00:01.000 --> 00:00:02,000"));
+        assertFalse(TimecodeParser.isValid("00:00:01,000 -> 00:00:02,000"));
+        assertEquals(-1, TimecodeParser.parseStart("00:0a:01,000 --> 00:00:02,000"));
+    }
+
+    @Test
+    public void testShiftsAndClampsOverlapsInOnePass() {
+        CompactSubtitleDocument document = CompactSubtitleDocument.builder(3)
+                .add(1, "00:00:01,000 --> 00:00:05,000", List.of("Uno"))
+                .add(2, "00:00:04,000 --> 00:00:04,100", List.of("Dos"))
+                .add(3, "00:00:10,000 --> 00:00:12,000", List.of("Tres"))
+                .build();
+
+        TimingRequest request = new TimingRequest();
+        request.setShiftMs(-1500);
+        request.setMinDurationMs(500);
+        request.setClampOverlaps(true);
+
+        CompactSubtitleDocument adjusted = timingService.adjust(document, request);
+
+        assertEquals("00:00:00,000 --> 00:00:02,500", adjusted.getTimeCode(0));
+        assertEquals("00:00:02,500 --> 00:00:03,000", adjusted.getTimeCode(1));
+        assertEquals("00:00:08,500 --> 00:00:10,500", adjusted.getTimeCode(2));
+        assertEquals("Tres", adjusted.getText(2));
+    }
+
+    @Test
+    public void testConvertsFrameRate() {
+        CompactSubtitleDocument document = CompactSubtitleDocument.builder(1)
+                .add(1, "00:00:25,000 --> 00:00:50,000", List.of("Hola"))
+                .build();
+
+        TimingRequest request = new TimingRequest();
+        request.setSourceFrameRate(25.0);
+        request.setTargetFrameRate(23.976);
+
+        CompactSubtitleDocument adjusted = timingService.adjust(document, request);
+
+        assertEquals(26_068, adjusted.getStartMs(0));
+        assertEquals(52_135, adjusted.getEndMs(0));
+
+        request.setTargetFrameRate(null);
+        assertThrows(IllegalArgumentException.class, () -> timingService.adjust(document, request));
+    }
+}
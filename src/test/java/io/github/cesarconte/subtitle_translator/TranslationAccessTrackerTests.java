@@ -0,0 +1,112 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.service.TranslationAccessTracker;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de la escritura agrupada de las estadísticas de acceso
+ */
+public class TranslationAccessTrackerTests {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class);
+    private final TranslationAccessTracker tracker = new TranslationAccessTracker(mongoTemplate);
+
+    public TranslationAccessTrackerTests() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Translation.class))
+                .thenReturn(bulkOperations);
+    }
+
+    /**
+     * Actualizaciones enviadas en la escritura agrupada, por ID de traducción
+     */
+    private Map<String, Document> updatesByTranslation(int times) {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(times)).updateOne(queries.capture(), updates.capture());
+        Map<String, Document> byTranslation = new HashMap<>();
+        for (int i = 0; i < queries.getAllValues().size(); i++) {
+            byTranslation.put((String) queries.getAllValues().get(i).getQueryObject().get("_id"),
+                    updates.getAllValues().get(i).getUpdateObject());
+        }
+        return byTranslation;
+    }
+
+    @Test
+    public void testFlushSendsOneBulkWriteWithIncAndMax() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        tracker.recordAccess("a");
+        tracker.recordAccess("a");
+        tracker.recordAccess("a");
+        tracker.recordAccess("b");
+
+        assertEquals(2, tracker.flush());
+
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.UNORDERED, Translation.class);
+        verify(bulkOperations, times(1)).execute();
+        Map<String, Document> updates = updatesByTranslation(2);
+        assertEquals(new Document("accessCount", 3), updates.get("a").get("$inc"));
+        assertEquals(new Document("accessCount", 1), updates.get("b").get("$inc"));
+        LocalDateTime lastAccessedAt = (LocalDateTime) ((Document) updates.get("a").get("$max"))
+                .get("lastAccessedAt");
+        assertTrue(lastAccessedAt.isAfter(before));
+        // Solo se actualizan las estadísticas, nunca los contenidos
+        assertEquals(List.of("$inc", "$max"), List.copyOf(updates.get("a").keySet()));
+
+        // Sin accesos nuevos no hay nada que escribir
+        assertEquals(0, tracker.flush());
+        verifyNoMoreInteractions(bulkOperations);
+    }
+
+    @Test
+    public void testFailedFlushRecordsTheAccessesAgain() {
+        tracker.recordAccess("a");
+        tracker.recordAccess("a");
+        doThrow(new IllegalStateException("Mongo unavailable")).doReturn(null).when(bulkOperations).execute();
+
+        assertEquals(0, tracker.flush());
+
+        tracker.recordAccess("a");
+        assertEquals(1, tracker.flush());
+        verify(bulkOperations, times(2)).execute();
+        // Los accesos del intento fallido se suman a los nuevos
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), updates.capture());
+        assertEquals(new Document("accessCount", 2), updates.getAllValues().get(0).getUpdateObject().get("$inc"));
+        assertEquals(new Document("accessCount", 3), updates.getAllValues().get(1).getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    public void testPendingAccessesAreFlushedOnShutdown() throws Exception {
+        tracker.recordAccess("a");
+        Method shutdown = Arrays.stream(TranslationAccessTracker.class.getDeclaredMethods())
+                .filter(method -> method.isAnnotationPresent(PreDestroy.class))
+                .findFirst()
+                .orElseThrow();
+        shutdown.setAccessible(true);
+
+        shutdown.invoke(tracker);
+
+        verify(bulkOperations, times(1)).execute();
+        assertEquals(new Document("accessCount", 1), updatesByTranslation(1).get("a").get("$inc"));
+    }
+}
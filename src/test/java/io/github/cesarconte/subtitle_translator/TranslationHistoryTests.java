@@ -0,0 +1,100 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.controller.TranslationHistoryController;
+import io.github.cesarconte.subtitle_translator.model.TranslationSummary;
+import io.github.cesarconte.subtitle_translator.repository.TranslationRepository;
+import io.github.cesarconte.subtitle_translator.service.TranslationAccessTracker;
+import io.github.cesarconte.subtitle_translator.service.TranslationStorageService;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de la paginación por cursor del historial
+ */
+public class TranslationHistoryTests {
+
+    private final TranslationStorageService storageService = mock(TranslationStorageService.class);
+    private final TranslationHistoryController controller = new TranslationHistoryController(
+            mock(TranslationRepository.class), mock(TranslationAccessTracker.class), storageService);
+
+    private static TranslationSummary summary(String id, LocalDateTime lastAccessedAt) {
+        TranslationSummary summary = new TranslationSummary();
+        summary.setId(id);
+        summary.setLastAccessedAt(lastAccessedAt);
+        return summary;
+    }
+
+    @Test
+    public void testCursorRoundTrip() {
+        LocalDateTime accessed = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_000_000);
+        when(storageService.findHistory(isNull(), isNull(), eq(3))).thenReturn(List.of(
+                summary("665f1c2e9b1e8a3d4c5b6a79", accessed.plusMinutes(1)),
+                summary("665f1c2e9b1e8a3d4c5b6a78", accessed),
+                summary("665f1c2e9b1e8a3d4c5b6a77", accessed)));
+
+        Map<String, Object> firstPage = controller.getTranslationHistory(null, 2).getBody();
+
+        assertEquals(2, ((List<?>) firstPage.get("translations")).size());
+        assertEquals(true, firstPage.get("hasMore"));
+        String cursor = (String) firstPage.get("nextCursor");
+        assertNotNull(cursor);
+
+        when(storageService.findHistory(any(), any(), anyInt())).thenReturn(List.of());
+        Map<String, Object> secondPage = controller.getTranslationHistory(cursor, 2).getBody();
+
+        // La página siguiente empieza tras la última traducción listada
+        verify(storageService).findHistory(accessed, "665f1c2e9b1e8a3d4c5b6a78", 3);
+        assertEquals(false, secondPage.get("hasMore"));
+        assertNull(secondPage.get("nextCursor"));
+    }
+
+    @Test
+    public void testEqualLastAccessedAtBreaksTieById() {
+        LocalDateTime accessed = LocalDateTime.of(2024, 5, 1, 10, 30);
+
+        Query query = TranslationStorageService.historyQuery(accessed, "665f1c2e9b1e8a3d4c5b6a78", 10);
+
+        List<?> clauses = (List<?>) query.getQueryObject().get("$or");
+        assertEquals(2, clauses.size());
+        assertEquals(new Document("lastAccessedAt", new Document("$lt", accessed)), clauses.get(0));
+        assertEquals(new Document("lastAccessedAt", accessed)
+                .append("_id", new Document("$lt", "665f1c2e9b1e8a3d4c5b6a78")), clauses.get(1));
+        assertEquals(new Document("lastAccessedAt", -1).append("_id", -1), query.getSortObject());
+        assertEquals(10, query.getLimit());
+    }
+
+    @Test
+    public void testFirstPageHasNoFilter() {
+        Query query = TranslationStorageService.historyQuery(null, null, 10);
+
+        assertTrue(query.getQueryObject().isEmpty());
+    }
+
+    @Test
+    public void testBadCursorReturns400() {
+        String withoutId = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-05-01T10:30".getBytes(StandardCharsets.UTF_8));
+        String badDate = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("yesterday|665f1c2e9b1e8a3d4c5b6a78".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of("not a cursor!", withoutId, badDate)) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> controller.getTranslationHistory(cursor, 10));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+        verifyNoInteractions(storageService);
+    }
+}
@@ -0,0 +1,322 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.controller.TranslationController;
+import io.github.cesarconte.subtitle_translator.model.CompactSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.ParsedSubtitleDocument;
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.model.TranslationRequest;
+import io.github.cesarconte.subtitle_translator.model.TranslationResponse;
+import io.github.cesarconte.subtitle_translator.model.TranslationSession;
+import io.github.cesarconte.subtitle_translator.service.ProgressStreamService;
+import io.github.cesarconte.subtitle_translator.service.ProgressTrackingService;
+import io.github.cesarconte.subtitle_translator.service.SubtitleDocumentService;
+import io.github.cesarconte.subtitle_translator.service.TranslationJobService;
+import io.github.cesarconte.subtitle_translator.service.TranslationService;
+import io.github.cesarconte.subtitle_translator.service.TranslationStorageService;
+import io.github.cesarconte.subtitle_translator.util.SrtParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the background translation jobs
+ */
+public class TranslationJobTests {
+
+    private static final String SRT = "1\n00:00:01,000 --> 00:00:02,000\nHello\n";
+
+    private final TranslationService translationService = mock(TranslationService.class);
+    private final ProgressTrackingService progressTrackingService = new ProgressTrackingService();
+    private final SubtitleDocumentService subtitleDocumentService = new SubtitleDocumentService(new SrtParser());
+    private final TranslationStorageService storageService = mock(TranslationStorageService.class);
+    private final AppProperties appProperties = new AppProperties();
+
+    // Job workers are daemon threads, so the services need no shutdown
+    private TranslationJobService jobService() {
+        return new TranslationJobService(translationService, new SrtParser(), progressTrackingService,
+                storageService, subtitleDocumentService, new SimpleMeterRegistry(),
+                appProperties);
+    }
+
+    /**
+     * Makes the translation wait until the latch is released
+     */
+    private void translateAfter(CountDownLatch release) {
+        when(translationService.translateDocumentToLanguages(any(ParsedSubtitleDocument.class), anyList(), any(),
+                anyString(), any(ProgressTrackingService.class))).thenAnswer(invocation -> {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    ParsedSubtitleDocument document = invocation.getArgument(0);
+                    List<String> targetLangs = invocation.getArgument(1);
+                    Map<String, CompactSubtitleDocument> translated = new LinkedHashMap<>();
+                    for (String targetLang : targetLangs) {
+                        translated.put(targetLang, document.getSubtitles());
+                    }
+                    return translated;
+                });
+    }
+
+    private static TranslationRequest request(String fileName) {
+        return new TranslationRequest(null, "EN", "ES", fileName);
+    }
+
+    private TranslationController controller(TranslationJobService jobService) {
+        return new TranslationController(translationService, subtitleDocumentService, progressTrackingService,
+                jobService, mock(ProgressStreamService.class));
+    }
+
+    @Test
+    public void testIdenticalConcurrentSubmissionsShareOneTranslation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        translateAfter(release);
+        TranslationJobService jobService = jobService();
+        ParsedSubtitleDocument document = subtitleDocumentService.parse(SRT);
+        String leader = progressTrackingService.startTracking(document.getTotalChars());
+        String follower = progressTrackingService.startTracking(document.getTotalChars());
+
+        CompletableFuture<TranslationResponse> leaderResult = jobService.submit(leader, request("mine.srt"),
+                document);
+        CompletableFuture<TranslationResponse> followerResult = jobService.submit(follower,
+                request("yours.srt"), subtitleDocumentService.parse(SRT));
+        release.countDown();
+
+        TranslationResponse leaderResponse = leaderResult.get(5, TimeUnit.SECONDS);
+        TranslationResponse followerResponse = followerResult.get(5, TimeUnit.SECONDS);
+
+        verify(translationService, times(1)).translateDocumentToLanguages(any(), anyList(), any(), anyString(),
+                any());
+        // Each session downloads under its own file name, from its own response
+        assertNotSame(leaderResponse, followerResponse);
+        assertEquals("mine.srt", leaderResponse.getFileName());
+        assertEquals("yours.srt", followerResponse.getFileName());
+        assertEquals(leaderResponse.getTranslatedContent(), followerResponse.getTranslatedContent());
+        assertSame(followerResponse, jobService.getResult(follower).orElseThrow());
+        assertEquals("mine.srt", jobService.getResult(leader).orElseThrow().getFileName());
+        assertFalse(jobService.isPending(follower));
+    }
+
+    @Test
+    public void testSubmissionsBeyondTheQueueAreRejected() throws Exception {
+        appProperties.getJobs().setMaxConcurrentJobs(1);
+        appProperties.getJobs().setQueueCapacity(1);
+        CountDownLatch release = new CountDownLatch(1);
+        translateAfter(release);
+        TranslationJobService jobService = jobService();
+        ParsedSubtitleDocument running = subtitleDocumentService.parse(SRT);
+        ParsedSubtitleDocument queued = subtitleDocumentService.parse(SRT.replace("Hello", "Bye"));
+        ParsedSubtitleDocument rejected = subtitleDocumentService.parse(SRT.replace("Hello", "Again"));
+        String runningSession = progressTrackingService.startTracking(running.getTotalChars());
+        String queuedSession = progressTrackingService.startTracking(queued.getTotalChars());
+        String rejectedSession = progressTrackingService.startTracking(rejected.getTotalChars());
+        String attachedSession = progressTrackingService.startTracking(running.getTotalChars());
+
+        CompletableFuture<TranslationResponse> runningResult = jobService.submit(runningSession,
+                request("a.srt"), running);
+        CompletableFuture<TranslationResponse> queuedResult = jobService.submit(queuedSession,
+                request("b.srt"), queued);
+        assertThrows(RejectedExecutionException.class,
+                () -> jobService.submit(rejectedSession, request("c.srt"), rejected));
+        // Attaching to a running translation takes no room in the queue
+        CompletableFuture<TranslationResponse> attachedResult = jobService.submit(attachedSession,
+                request("a.srt"), subtitleDocumentService.parse(SRT));
+
+        assertFalse(jobService.isPending(rejectedSession));
+        assertEquals("error", progressTrackingService.getProgress(rejectedSession).getPhase());
+
+        release.countDown();
+        assertTrue(runningResult.get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(queuedResult.get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(attachedResult.get(5, TimeUnit.SECONDS).isSuccess());
+
+        // The finished jobs free their room for new submissions
+        assertTrue(jobService.submit(rejectedSession, request("c.srt"), rejected).get(5, TimeUnit.SECONDS)
+                .isSuccess());
+    }
+
+    @Test
+    public void testResultsExpireAfterTheirTtl() throws Exception {
+        appProperties.getJobs().setResultTtlMinutes(0);
+        translateAfter(new CountDownLatch(0));
+        TranslationJobService jobService = jobService();
+        ParsedSubtitleDocument document = subtitleDocumentService.parse(SRT);
+        String sessionId = progressTrackingService.startTracking(document.getTotalChars());
+
+        assertTrue(jobService.submit(sessionId, request("a.srt"), document).get(5, TimeUnit.SECONDS)
+                .isSuccess());
+
+        assertTrue(jobService.getResult(sessionId).isEmpty());
+        assertFalse(jobService.isPending(sessionId));
+        assertTrue(jobService.submittedFor(sessionId, request("a.srt")).isEmpty());
+    }
+
+    @Test
+    public void testEvictedResultsAreGone() throws Exception {
+        translateAfter(new CountDownLatch(0));
+        TranslationJobService jobService = jobService();
+        ParsedSubtitleDocument document = subtitleDocumentService.parse(SRT);
+        String sessionId = progressTrackingService.startTracking(document.getTotalChars());
+        jobService.submit(sessionId, request("a.srt"), document).get(5, TimeUnit.SECONDS);
+        assertTrue(jobService.getResult(sessionId).isPresent());
+
+        jobService.evictResult(sessionId);
+
+        assertTrue(jobService.getResult(sessionId).isEmpty());
+        assertTrue(jobService.submittedFor(sessionId, request("a.srt")).isEmpty());
+    }
+
+    @Test
+    public void testInitWithStartTranslationStartsTheJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        translateAfter(release);
+        TranslationJobService jobService = jobService();
+        TranslationController controller = controller(jobService);
+        TranslationRequest request = new TranslationRequest(SRT, "EN", "ES", "a.srt");
+        request.setStartTranslation(true);
+
+        String sessionId = controller.initTranslation(request).getBody().getSessionId();
+
+        assertTrue(jobService.isPending(sessionId));
+        assertEquals(Optional.of(true), jobService.submittedFor(sessionId, request));
+
+        // The later /subtitle call attaches to the job instead of starting another
+        ResponseEntity<?> subtitle = controller.translateSubtitle(request, sessionId);
+        assertEquals(HttpStatus.ACCEPTED, subtitle.getStatusCode());
+        release.countDown();
+        verify(translationService, timeout(5000).times(1)).translateDocumentToLanguages(any(), anyList(), any(),
+                anyString(), any());
+    }
+
+    @Test
+    public void testInitWithoutStartTranslationStartsNoJob() {
+        TranslationJobService jobService = jobService();
+
+        String sessionId = controller(jobService).initTranslation(new TranslationRequest(SRT, "EN", "ES", "a.srt"))
+                .getBody().getSessionId();
+
+        assertFalse(jobService.isPending(sessionId));
+        assertTrue(jobService.submittedFor(sessionId, request("a.srt")).isEmpty());
+    }
+
+    @Test
+    public void testSubtitleAnswersAcceptedWithTheResultLocation() throws Exception {
+        translateAfter(new CountDownLatch(0));
+        TranslationJobService jobService = jobService();
+        TranslationController controller = controller(jobService);
+        String sessionId = controller.initTranslation(new TranslationRequest(SRT, "EN", "ES", "a.srt"))
+                .getBody().getSessionId();
+
+        ResponseEntity<?> response = controller.translateSubtitle(new TranslationRequest(null, "EN", "ES", "a.srt"),
+                sessionId);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(URI.create("/api/translate/result/" + sessionId), response.getHeaders().getLocation());
+        assertEquals(sessionId, ((TranslationSession) response.getBody()).getSessionId());
+    }
+
+    @Test
+    public void testEveryTargetLanguageIsTranslatedAndStoredInOneJob() throws Exception {
+        translateAfter(new CountDownLatch(0));
+        ParsedSubtitleDocument document = subtitleDocumentService.parse(SRT);
+        String sessionId = progressTrackingService.startTracking(document.getTotalChars());
+        TranslationRequest request = request("a.srt");
+        request.setTargetLanguages(List.of("ES", "FR", "DE"));
+
+        TranslationResponse response = jobService().submit(sessionId, request, document).get(5, TimeUnit.SECONDS);
+
+        verify(translationService, times(1)).translateDocumentToLanguages(any(), eq(List.of("ES", "FR", "DE")),
+                eq("EN"), eq(sessionId), any());
+        // One stored translation per language, all keyed by the same upload
+        for (String targetLanguage : List.of("ES", "FR", "DE")) {
+            verify(storageService).saveTranslation(eq(document.getContentHash()), eq("a.srt"), anyString(),
+                    eq("EN"), eq(targetLanguage), anyString(), anyString(), anyDouble(), anyString());
+        }
+        assertTrue(response.isSuccess());
+        assertEquals(List.of("ES", "FR", "DE"),
+                response.getTranslations().stream().map(TranslationResponse::getTargetLanguage).toList());
+    }
+
+    @Test
+    public void testStoredLanguagesAreNotTranslatedAgain() throws Exception {
+        translateAfter(new CountDownLatch(0));
+        ParsedSubtitleDocument document = subtitleDocumentService.parse(SRT);
+        Translation stored = new Translation();
+        stored.setTargetLanguage("ES");
+        stored.setAverageConfidence(1.0);
+        when(storageService.findExistingTranslationByHash(document.getContentHash(), "EN", "ES"))
+                .thenReturn(Optional.of(stored));
+        when(storageService.getTranslatedContent(stored)).thenReturn(SRT.replace("Hello", "Hola"));
+        String sessionId = progressTrackingService.startTracking(document.getTotalChars());
+        TranslationRequest request = request("a.srt");
+        request.setTargetLanguages(List.of("ES", "FR"));
+
+        TranslationResponse response = jobService().submit(sessionId, request, document).get(5, TimeUnit.SECONDS);
+
+        verify(translationService).translateDocumentToLanguages(any(), eq(List.of("FR")), any(), anyString(),
+                any());
+        verify(storageService, times(1)).saveTranslation(anyString(), anyString(), anyString(), anyString(),
+                anyString(), anyString(), anyString(), anyDouble(), anyString());
+        assertEquals(SRT.replace("Hello", "Hola"), response.forTargetLanguage("ES").getTranslatedContent());
+        assertEquals(SRT, response.forTargetLanguage("FR").getTranslatedContent());
+    }
+
+    @Test
+    public void testForTargetLanguage() {
+        TranslationResponse spanish = new TranslationResponse("es", List.of(), 1.0);
+        spanish.setTargetLanguage("ES");
+        TranslationResponse french = new TranslationResponse("fr", List.of(), 1.0);
+        french.setTargetLanguage("FR");
+        TranslationResponse multiple = new TranslationResponse();
+        multiple.setTranslations(List.of(spanish, french));
+
+        assertSame(french, multiple.forTargetLanguage("fr"));
+        assertSame(spanish, multiple.forTargetLanguage("ES"));
+        // With several languages the client has to choose one
+        assertNull(multiple.forTargetLanguage(null));
+        assertNull(multiple.forTargetLanguage("DE"));
+
+        assertSame(spanish, spanish.forTargetLanguage(null));
+        assertSame(spanish, spanish.forTargetLanguage("es"));
+        assertNull(spanish.forTargetLanguage("FR"));
+    }
+
+    @Test
+    public void testTargetLanguagesAreDeduplicated() {
+        TranslationRequest request = request("a.srt");
+        assertEquals(List.of("ES"), request.targets());
+
+        request.setTargetLanguages(Arrays.asList("FR", "ES", "FR", null));
+        assertEquals(List.of("FR", "ES"), request.targets());
+
+        request.setTargetLanguages(List.of());
+        assertEquals(List.of("ES"), request.targets());
+
+        // The same languages in another order are the same job
+        CountDownLatch release = new CountDownLatch(1);
+        translateAfter(release);
+        TranslationJobService jobService = jobService();
+        String sessionId = progressTrackingService.startTracking(1);
+        request.setTargetLanguages(List.of("ES", "FR", "ES"));
+        jobService.submit(sessionId, request, subtitleDocumentService.parse(SRT));
+        TranslationRequest reordered = request("a.srt");
+        reordered.setTargetLanguages(List.of("FR", "ES"));
+        assertEquals(Optional.of(true), jobService.submittedFor(sessionId, reordered));
+        assertEquals(Optional.of(false), jobService.submittedFor(sessionId, request("a.srt")));
+        release.countDown();
+    }
+}
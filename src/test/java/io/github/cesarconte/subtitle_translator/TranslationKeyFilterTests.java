@@ -0,0 +1,116 @@
+package io.github.cesarconte.subtitle_translator;
+
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.service.TranslationKeyFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas del filtro de Bloom de traducciones guardadas
+ */
+public class TranslationKeyFilterTests {
+
+    @Test
+    public void testKeysSavedDuringRebuildStayInNewFilter() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Translation.class)).thenReturn("translations");
+        CountDownLatch streamStarted = new CountDownLatch(1);
+        CountDownLatch releaseStream = new CountDownLatch(1);
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("translations"))).thenAnswer(invocation -> {
+            streamStarted.countDown();
+            assertTrue(releaseStream.await(5, TimeUnit.SECONDS));
+            return Stream.of(new Document("contentHash", "stored")
+                    .append("sourceLanguage", "EN")
+                    .append("targetLanguage", "ES"));
+        });
+
+        TranslationKeyFilter filter = new TranslationKeyFilter(mongoTemplate, new SimpleMeterRegistry(),
+                new AppProperties());
+        // Sin filtro todavía cualquier clave puede existir
+        assertTrue(filter.mightContain("unknown", "EN", "ES"));
+
+        filter.buildOnStartup();
+        assertTrue(streamStarted.await(5, TimeUnit.SECONDS));
+        // Se guarda mientras la reconstrucción lee la colección
+        filter.put("saved", "EN", "FR");
+        releaseStream.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (filter.getApproximateEntries() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(2, filter.getApproximateEntries());
+        assertTrue(filter.mightContain("stored", "EN", "ES"));
+        assertTrue(filter.mightContain("saved", "EN", "FR"));
+        assertFalse(filter.mightContain("unknown", "EN", "ES"));
+        assertTrue(filter.getMemoryBytes() > 0);
+    }
+
+    @Test
+    public void testKeysSavedAfterBuildAreAdded() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Translation.class)).thenReturn("translations");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("translations")))
+                .thenAnswer(invocation -> Stream.empty());
+
+        TranslationKeyFilter filter = new TranslationKeyFilter(mongoTemplate, new SimpleMeterRegistry(),
+                new AppProperties());
+        filter.buildOnStartup();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (filter.getExpectedFpp() == 1.0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(filter.mightContain("new", "EN", "ES"));
+
+        filter.put("new", "EN", "ES");
+
+        assertTrue(filter.mightContain("new", "EN", "ES"));
+        assertFalse(filter.mightContain("new", "EN", "FR"));
+    }
+
+    @Test
+    public void testKeysSavedByOtherInstancesAreSynced() throws Exception {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Translation.class)).thenReturn("translations");
+        // La reconstrucción lee la colección entera; la sincronización, solo lo creado después
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("translations"))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            if (!query.getQueryObject().containsKey("createdAt")) {
+                return Stream.empty();
+            }
+            return Stream.of(new Document("contentHash", "elsewhere")
+                    .append("sourceLanguage", "EN")
+                    .append("targetLanguage", "DE"));
+        });
+
+        TranslationKeyFilter filter = new TranslationKeyFilter(mongoTemplate, new SimpleMeterRegistry(),
+                new AppProperties());
+        // Sin filtro no hay nada que sincronizar
+        filter.syncNewKeys();
+        verify(mongoTemplate, never()).stream(any(Query.class), eq(Document.class), anyString());
+
+        filter.buildOnStartup();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (filter.getExpectedFpp() == 1.0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(filter.mightContain("elsewhere", "EN", "DE"));
+
+        filter.syncNewKeys();
+
+        assertTrue(filter.mightContain("elsewhere", "EN", "DE"));
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.cesarconte.subtitle_translator;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import io.github.cesarconte.subtitle_translator.config.AppProperties;
+import io.github.cesarconte.subtitle_translator.model.Translation;
+import io.github.cesarconte.subtitle_translator.repository.TranslationRepository;
+import io.github.cesarconte.subtitle_translator.service.SubtitleContentStore;
+import io.github.cesarconte.subtitle_translator.service.TranslationAccessTracker;
+import io.github.cesarconte.subtitle_translator.service.TranslationKeyFilter;
+import io.github.cesarconte.subtitle_translator.service.TranslationStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el guardado de traducciones con lectura previa y save frente al
+ * upsert de un solo findAndModify, sobre un MongoDB embebido.
+ *
+ * Se ejecuta con mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class TranslationStorageBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(TranslationStorageBenchmarkTests.class);
+
+    private static final int TRANSLATIONS = 500;
+    private static final Set<String> DATA_COMMANDS = Set.of("find", "insert", "update", "findAndModify");
+
+    @Test
+    public void testUpsertUsesFewerRoundTripsThanFindAndSave() {
+        try (TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance()
+                .start(Version.Main.V6_0)) {
+            ServerAddress address = mongod.current().getServerAddress();
+            AtomicInteger roundTrips = new AtomicInteger();
+            CommandListener listener = new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (DATA_COMMANDS.contains(event.getCommandName())) {
+                        roundTrips.incrementAndGet();
+                    }
+                }
+            };
+            MongoClientSettings settings = MongoClientSettings.builder()
+                    .applyConnectionString(new ConnectionString(
+                            "mongodb://" + address.getHost() + ":" + address.getPort()))
+                    .addCommandListener(listener)
+                    .build();
+
+            try (MongoClient client = MongoClients.create(settings)) {
+                MongoTemplate mongoTemplate = new MongoTemplate(client, "benchmark");
+                mongoTemplate.indexOps(Translation.class).ensureIndex(new CompoundIndexDefinition(
+                        new Document("contentHash", 1).append("sourceLanguage", 1).append("targetLanguage", 1))
+                        .unique());
+                TranslationRepository repository = new MongoRepositoryFactory(mongoTemplate)
+                        .getRepository(TranslationRepository.class);
+                TranslationStorageService storageService = new TranslationStorageService(repository,
+                        mongoTemplate, new SubtitleContentStore(mongoTemplate),
+                        new TranslationAccessTracker(mongoTemplate),
+                        new TranslationKeyFilter(mongoTemplate, new SimpleMeterRegistry(), new AppProperties()));
+
+                // Calentamiento de la conexión y del JIT
+                for (int i = 0; i < 50; i++) {
+                    findAndSave(repository, "warmup" + i);
+                    upsert(storageService, "warmup" + i);
+                }
+
+                // Cada variante inserta sus traducciones y luego las actualiza
+                roundTrips.set(0);
+                long start = System.nanoTime();
+                for (int round = 0; round < 2; round++) {
+                    for (int i = 0; i < TRANSLATIONS; i++) {
+                        findAndSave(repository, "legacy" + i);
+                    }
+                }
+                long findAndSaveNanos = System.nanoTime() - start;
+                int findAndSaveRoundTrips = roundTrips.getAndSet(0);
+
+                start = System.nanoTime();
+                for (int round = 0; round < 2; round++) {
+                    for (int i = 0; i < TRANSLATIONS; i++) {
+                        upsert(storageService, "upsert" + i);
+                    }
+                }
+                long upsertNanos = System.nanoTime() - start;
+                int upsertRoundTrips = roundTrips.get();
+
+                logger.info("find + save: {} round trips, {} ms", findAndSaveRoundTrips,
+                        findAndSaveNanos / 1_000_000);
+                logger.info("findAndModify upsert: {} round trips, {} ms", upsertRoundTrips,
+                        upsertNanos / 1_000_000);
+
+                // find + save en cada guardado; el upsert solo añade la escritura en
+                // lote de los contenidos comprimidos la primera vez que aparecen
+                assertEquals(4 * TRANSLATIONS, findAndSaveRoundTrips);
+                assertEquals(3 * TRANSLATIONS, upsertRoundTrips);
+                assertTrue(upsertRoundTrips < findAndSaveRoundTrips);
+                // Las dos variantes comparten los documentos del calentamiento
+                assertEquals(2 * TRANSLATIONS + 50, mongoTemplate.count(new Query(), Translation.class));
+
+                Translation stored = repository
+                        .findByContentHashAndSourceLanguageAndTargetLanguage("upsert0", "EN", "ES")
+                        .orElseThrow();
+                assertNull(stored.getOriginalContent());
+                assertEquals("original upsert0", storageService.getOriginalContent(stored));
+                assertEquals("traducido upsert0", storageService.getTranslatedContent(stored));
+                assertEquals(2, stored.getAccessCount());
+            }
+        }
+    }
+
+    /**
+     * Guardado anterior: lectura del documento y save completo
+     */
+    private static void findAndSave(TranslationRepository repository, String contentHash) {
+        Optional<Translation> existing = repository.findByContentHashAndSourceLanguageAndTargetLanguage(
+                contentHash, "EN", "ES");
+        Translation translation;
+        if (existing.isPresent()) {
+            translation = existing.get();
+            translation.updateAccess();
+        } else {
+            translation = new Translation();
+            translation.setFileName(contentHash + ".srt");
+            translation.setContentHash(contentHash);
+            translation.setOriginalContent("original " + contentHash);
+            translation.setSourceLanguage("EN");
+            translation.setTargetLanguage("ES");
+            translation.setFileSize((long) translation.getOriginalContent().getBytes(StandardCharsets.UTF_8).length);
+        }
+        translation.setTranslatedContent("traducido " + contentHash);
+        translation.setConfidenceData("[]");
+        translation.setAverageConfidence(0.9);
+        translation.setConfidenceLevel("high");
+        repository.save(translation);
+    }
+
+    private static void upsert(TranslationStorageService storageService, String contentHash) {
+        storageService.saveTranslation(contentHash, contentHash + ".srt", "original " + contentHash, "EN", "ES",
+                "traducido " + contentHash, "[]", 0.9, "high");
+    }
+}